@@ -0,0 +1,80 @@
+package com.tinkermic.benchmark;
+
+import com.tinkermic.benchmark.jmh.AbstractBenchmarkBase;
+import com.tinkermic.gremlin.structure.TinkermicBulkLoader;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import datomic.Peer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.UUID;
+
+/**
+ * Measures the vertices/sec and edges/sec of a {@link TinkermicBulkLoader} loading into an empty
+ * {@link TinkermicGraph}. Every invocation loads {@link #ELEMENTS} elements, which the reported throughput is
+ * divided by.
+ */
+@State(Scope.Thread)
+public class TinkermicBulkLoaderBenchmark extends AbstractBenchmarkBase {
+    private static final int ELEMENTS = 10000;
+    private static final int VERTICES_FOR_EDGES = 1000;
+
+    @Param({"1000", "5000"})
+    public int batchSize;
+
+    @Param({"1", "4"})
+    public int maxInFlight;
+
+    private String uri;
+    private TinkermicGraph graph;
+    private TinkermicBulkLoader loader;
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        uri = "datomic:mem://temp-" + UUID.randomUUID();
+        graph = TinkermicGraph.open(uri);
+        loader = graph.bulkLoader(batchSize, maxInFlight)
+                .declareVertexProperty("name", String.class)
+                .declareVertexProperty("age", Integer.class)
+                .declareEdgeProperty("weight", Double.class);
+
+        // the vertices the edges are loaded between
+        for (int i = 0; i < VERTICES_FOR_EDGES; i++) {
+            loader.addVertex(-i - 1, "person", "name", "p" + i, "age", i);
+        }
+        loader.flush();
+    }
+
+    // every invocation loads into a database of its own, which is deleted so the memory databases don't pile up
+    @TearDown(Level.Invocation)
+    public void tearDown() throws Exception {
+        graph.close();
+        Peer.deleteDatabase(uri);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public long loadVertices() {
+        for (int i = 0; i < ELEMENTS; i++) {
+            loader.addVertex(i, "person", "name", "v" + i, "age", i);
+        }
+        loader.flush();
+        return loader.vertexCount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public long loadEdges() {
+        for (int i = 0; i < ELEMENTS; i++) {
+            loader.addEdge(-(i % VERTICES_FOR_EDGES) - 1, -((i * 31) % VERTICES_FOR_EDGES) - 1, "knows", "weight", 0.5d);
+        }
+        loader.flush();
+        return loader.edgeCount();
+    }
+}
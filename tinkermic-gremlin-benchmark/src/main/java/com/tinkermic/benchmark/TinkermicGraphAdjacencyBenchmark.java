@@ -0,0 +1,50 @@
+package com.tinkermic.benchmark;
+
+import com.tinkermic.gremlin.structure.AbstractTinkermicGraphBenchmark;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.commons.configuration.Configuration;
+import org.apache.tinkerpop.gremlin.LoadGraphWith;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.List;
+
+/**
+ * Compares resolving adjacent vertices through the VAET index against the Datalog query path on a
+ * {@link TinkermicGraph} loaded with the Grateful Dead data set.
+ */
+@LoadGraphWith(LoadGraphWith.GraphData.GRATEFUL)
+public class TinkermicGraphAdjacencyBenchmark extends AbstractTinkermicGraphBenchmark {
+
+    @Param({"true", "false"})
+    public boolean indexAdjacency;
+
+    @Override
+    protected Configuration configuration() {
+        Configuration configuration = super.configuration();
+        configuration.setProperty(TinkermicGraph.DATOMIC_INDEX_ADJACENCY, indexAdjacency);
+        return configuration;
+    }
+
+    @Benchmark
+    public List<Vertex> g_V_out() throws Exception {
+        return g.V().out().toList();
+    }
+
+    @Benchmark
+    public List<Vertex> g_V_outXfollowedByX_outXfollowedByX() throws Exception {
+        return g.V().out("followedBy").out("followedBy").toList();
+    }
+
+    @Benchmark
+    public List<Vertex> g_V_out_out_out() throws Exception {
+        return g.V().out().out().out().toList();
+    }
+
+    @Benchmark
+    public List<Vertex> g_V_both() throws Exception {
+        return g.V().both().toList();
+    }
+}
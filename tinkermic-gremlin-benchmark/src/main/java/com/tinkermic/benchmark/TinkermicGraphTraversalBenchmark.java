@@ -1,23 +1,63 @@
 package com.tinkermic.benchmark;
 
+import com.tinkermic.gremlin.process.traversal.strategy.DatomicStrategies;
 import com.tinkermic.gremlin.structure.AbstractTinkermicGraphBenchmark;
+import org.apache.commons.configuration.Configuration;
 import org.apache.tinkerpop.gremlin.LoadGraphWith;
+import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
 
 import java.util.List;
 
 /**
  * Runs a traversal benchmarks against a {@link com.tinkermic.gremlin.structure.TinkermicGraph} loaded
- * with the Grateful Dead data set.
+ * with the Grateful Dead data set, with and without the Datomic provider strategies.
  */
 @LoadGraphWith(LoadGraphWith.GraphData.GRATEFUL)
 public class TinkermicGraphTraversalBenchmark extends AbstractTinkermicGraphBenchmark {
 
+    @Param({"true", "false"})
+    public boolean providerStrategies;
+
+    @Override
+    protected Configuration configuration() {
+        Configuration configuration = super.configuration();
+        configuration.setProperty(DatomicStrategies.GRAPH_STEP, providerStrategies);
+        configuration.setProperty(DatomicStrategies.VERTEX_STEP, providerStrategies);
+        configuration.setProperty(DatomicStrategies.COUNT, providerStrategies);
+        return configuration;
+    }
+
     @Benchmark
     public List<Vertex> g_V_out_out_out() throws Exception {
         return g.V().out().toList();
     }
 
-}
\ No newline at end of file
+    @Benchmark
+    public List<Vertex> g_V_hasLabelXsongX() throws Exception {
+        return g.V().hasLabel("song").toList();
+    }
+
+    @Benchmark
+    public List<Vertex> g_V_hasLabelXartistX_inXsungByX() throws Exception {
+        return g.V().hasLabel("artist").in("sungBy").toList();
+    }
+
+    @Benchmark
+    public List<Edge> g_E_hasLabelXwrittenByX() throws Exception {
+        return g.E().hasLabel("writtenBy").toList();
+    }
+
+    @Benchmark
+    public Long g_V_hasLabelXsongX_count() throws Exception {
+        return g.V().hasLabel("song").count().next();
+    }
+
+    @Benchmark
+    public Long g_E_count() throws Exception {
+        return g.E().count().next();
+    }
+}
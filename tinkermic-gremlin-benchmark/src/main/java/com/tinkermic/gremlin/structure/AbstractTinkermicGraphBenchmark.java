@@ -1,10 +1,10 @@
 package com.tinkermic.gremlin.structure;
 
 import com.tinkermic.benchmark.jmh.AbstractBenchmarkBase;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
 import org.apache.tinkerpop.gremlin.LoadGraphWith;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
-import org.apache.tinkerpop.gremlin.structure.io.GraphReader;
-import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoReader;
 
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
@@ -35,7 +35,7 @@ public class AbstractTinkermicGraphBenchmark extends AbstractBenchmarkBase {
      */
     @Setup
     public void prepare() throws IOException {
-        graph = TinkermicGraph.open("datomic:mem://temp-" + UUID.randomUUID());
+        graph = TinkermicGraph.open(configuration());
         g = graph.traversal();
 
         LoadGraphWith[] loadGraphWiths = this.getClass().getAnnotationsByType(LoadGraphWith.class);
@@ -56,9 +56,8 @@ public class AbstractTinkermicGraphBenchmark extends AbstractBenchmarkBase {
                 throw new RuntimeException("Could not load graph with " + loadGraphWithData);
             }
 
-            GraphReader reader = GryoReader.build().create();
             try (InputStream stream = AbstractTinkermicGraphBenchmark.class.getResourceAsStream(PATH + graphFile)) {
-                reader.readGraph(stream, graph);
+                graph.importer().readGryo(stream);
             }
 
             // call requestIndex after the import to reduce the connection time for a transactor and peers
@@ -69,4 +68,14 @@ public class AbstractTinkermicGraphBenchmark extends AbstractBenchmarkBase {
             graph.connection().gcStorage(new Date());
         }
     }
+
+    /**
+     * The configuration used to open the {@link TinkermicGraph} under test. Benchmarks comparing graph settings
+     * override this to add their own keys.
+     */
+    protected Configuration configuration() {
+        BaseConfiguration configuration = new BaseConfiguration();
+        configuration.setProperty(TinkermicGraph.DATOMIC_DB_URI, "datomic:mem://temp-" + UUID.randomUUID());
+        return configuration;
+    }
 }
\ No newline at end of file
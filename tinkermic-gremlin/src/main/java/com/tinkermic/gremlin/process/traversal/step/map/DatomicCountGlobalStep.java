@@ -0,0 +1,51 @@
+package com.tinkermic.gremlin.process.traversal.step.map;
+
+import com.tinkermic.gremlin.process.traversal.step.sideEffect.DatomicGraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+
+/**
+ * Replaces a {@link DatomicGraphStep} followed by a {@code count()} at the start of a traversal. The count is taken
+ * from the index datoms the graph step would walk, so no element is created when the indexes answer all of its
+ * containers.
+ */
+public final class DatomicCountGlobalStep<S> extends AbstractStep<S, Long> {
+    private final DatomicGraphStep<?, ?> graphStep;
+    private boolean done = false;
+
+    public DatomicCountGlobalStep(final Traversal.Admin traversal, final DatomicGraphStep<?, ?> graphStep) {
+        super(traversal);
+        this.graphStep = graphStep;
+    }
+
+    @Override
+    protected Traverser.Admin<Long> processNextStart() {
+        if (this.done) throw FastNoSuchElementException.instance();
+        this.done = true;
+        return this.getTraversal().getTraverserGenerator().generate(this.graphStep.count(), (Step) this, 1L);
+    }
+
+    public DatomicGraphStep<?, ?> getGraphStep() {
+        return this.graphStep;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.done = false;
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, this.graphStep);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ this.graphStep.hashCode();
+    }
+}
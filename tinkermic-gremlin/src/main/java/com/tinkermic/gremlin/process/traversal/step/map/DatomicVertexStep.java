@@ -0,0 +1,101 @@
+package com.tinkermic.gremlin.process.traversal.step.map;
+
+import com.tinkermic.gremlin.structure.TinkermicEdge;
+import com.tinkermic.gremlin.structure.TinkermicElement;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import com.tinkermic.gremlin.structure.TinkermicVertex;
+import datomic.Database;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+
+import java.util.*;
+
+/**
+ * A {@link VertexStep} that collects a barrier of incoming traversers and resolves the neighbours of all of them
+ * with a single collection-bound query, rather than running one query per traverser. Every neighbour is emitted as
+ * a split of the traverser it was reached from, so bulk and path are kept.
+ */
+public class DatomicVertexStep<E extends Element> extends VertexStep<E> {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final int batchSize;
+    private Deque<Traverser.Admin<E>> expanded = new ArrayDeque<>();
+
+    public DatomicVertexStep(final VertexStep<E> originalVertexStep) {
+        this(originalVertexStep, DEFAULT_BATCH_SIZE);
+    }
+
+    public DatomicVertexStep(final VertexStep<E> originalVertexStep, final int batchSize) {
+        super(originalVertexStep.getTraversal(), originalVertexStep.getReturnClass(), originalVertexStep.getDirection(), originalVertexStep.getEdgeLabels());
+        originalVertexStep.getLabels().forEach(this::addLabel);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    protected Traverser.Admin<E> processNextStart() {
+        while (this.expanded.isEmpty()) {
+            final List<Traverser.Admin<Vertex>> barrier = new ArrayList<>();
+            while (barrier.size() < this.batchSize && this.starts.hasNext()) {
+                barrier.add(this.starts.next());
+            }
+            if (barrier.isEmpty()) throw FastNoSuchElementException.instance();
+            expand(barrier);
+        }
+        return this.expanded.poll();
+    }
+
+    private void expand(final List<Traverser.Admin<Vertex>> barrier) {
+        final TinkermicGraph graph = (TinkermicGraph) this.getTraversal().getGraph().get();
+        graph.tx().readWrite();
+        final Database database = graph.database();
+
+        // resolve the entity ids of the whole barrier first, so that a single query covers all of them
+        final List<Object> entityIds = new ArrayList<>(barrier.size());
+        final Set<Object> batch = new LinkedHashSet<>();
+        for (final Traverser.Admin<Vertex> traverser : barrier) {
+            final Object entityId = traverser.get() instanceof TinkermicElement ?
+                    ((TinkermicElement) traverser.get()).entityId(database) : null;
+            entityIds.add(entityId);
+            if (entityId != null) batch.add(entityId);
+        }
+
+        final Map<Object, List<List<Object>>> adjacent = batch.isEmpty() ? Collections.emptyMap() :
+                Vertex.class.isAssignableFrom(this.getReturnClass()) ?
+                        graph.helper().getVertices(database, batch, this.getDirection(), this.getEdgeLabels()) :
+                        graph.helper().getEdges(database, batch, this.getDirection(), this.getEdgeLabels());
+
+        for (int i = 0; i < barrier.size(); i++) {
+            final Traverser.Admin<Vertex> traverser = barrier.get(i);
+            if (entityIds.get(i) == null) {
+                // not one of ours, expand it the regular way
+                this.flatMap(traverser).forEachRemaining(element -> this.expanded.add(traverser.split(element, this)));
+            } else {
+                for (final List<Object> row : adjacent.getOrDefault(entityIds.get(i), Collections.emptyList())) {
+                    this.expanded.add(traverser.split(element(graph, database, row), this));
+                }
+            }
+        }
+    }
+
+    private E element(final TinkermicGraph graph, final Database database, final List<Object> row) {
+        return (E) (Vertex.class.isAssignableFrom(this.getReturnClass()) ?
+                new TinkermicVertex(graph, Optional.of(database), (UUID) row.get(1), row.get(0), (String) row.get(2)) :
+                new TinkermicEdge(graph, Optional.of(database), (UUID) row.get(1), row.get(0), (String) row.get(2)));
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.expanded.clear();
+    }
+
+    @Override
+    public DatomicVertexStep<E> clone() {
+        final DatomicVertexStep<E> clone = (DatomicVertexStep<E>) super.clone();
+        clone.expanded = new ArrayDeque<>();
+        return clone;
+    }
+}
@@ -2,25 +2,59 @@ package com.tinkermic.gremlin.process.traversal.step.sideEffect;
 
 import com.tinkermic.gremlin.structure.TinkermicEdge;
 import com.tinkermic.gremlin.structure.TinkermicGraph;
+import com.tinkermic.gremlin.structure.TinkermicPropertyKeys;
+import com.tinkermic.gremlin.structure.TinkermicUtil;
 import com.tinkermic.gremlin.structure.TinkermicVertex;
+import com.google.common.collect.Iterators;
 import datomic.Database;
-import datomic.Peer;
 import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Contains;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.ElementValueTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalUtil;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
 import java.util.*;
-import java.util.stream.StreamSupport;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class DatomicGraphStep<S, E extends Element> extends GraphStep<S, E> implements HasContainerHolder {
     private final List<HasContainer> hasContainers = new ArrayList<>();
+    private long lowRange = 0;
+    private long highRange = -1;
+    private ElementValueTraversal<?> orderTraversal;
+    private Order order;
+
+    // The ID/UUID/label triples of the elements found through an index and their count, together with the containers
+    // the index answers exactly. The other containers are tested against the elements in memory.
+    private static final class Lookup {
+        final Supplier<Iterator<List<Object>>> triples;
+        final LongSupplier count;
+        final Collection<HasContainer> answered;
+
+        Lookup(Supplier<Iterator<List<Object>>> triples, LongSupplier count, HasContainer... answered) {
+            this.triples = triples;
+            this.count = count;
+            this.answered = Arrays.asList(answered);
+        }
+
+        static Lookup empty() {
+            return new Lookup(Collections::emptyIterator, () -> 0L);
+        }
+    }
 
     public DatomicGraphStep(final GraphStep<S, E> originalGraphStep) {
         super(originalGraphStep.getTraversal(), originalGraphStep.getReturnClass(), originalGraphStep.isStartStep(), originalGraphStep.getIds());
@@ -33,28 +67,13 @@ public class DatomicGraphStep<S, E extends Element> extends GraphStep<S, E> impl
 
         // ids are present, filter on them first
         if (ids != null && ids.length > 0)
-            return IteratorUtils.filter(graph.edges(ids), vertex -> HasContainer.testAll(vertex, hasContainers));
+            return range(sorted(IteratorUtils.filter(graph.edges(ids), edge -> HasContainer.testAll(edge, hasContainers))));
 
-        // get a label being search on
-        Optional<String> eqLabel = hasContainers.stream()
-                .filter(hasContainer -> hasContainer.getKey().equals(T.label.getAccessor()))
-                .filter(hasContainer -> Compare.eq == hasContainer.getBiPredicate())
-                .map(hasContainer -> (String) hasContainer.getValue())
-                .findAny();
+        graph.tx().readWrite();
+        Database database = graph.database();
 
-        if (eqLabel.isPresent()) {
-            graph.tx().readWrite();
-            Database database = graph.database();
-
-            // find an edge by label
-            return StreamSupport.stream(listEdges(eqLabel.get(), database).spliterator(), false)
-                    .map(v -> new TinkermicEdge(graph, Optional.of(database), (UUID) v.get(1), v.get(0), (String) v.get(2)))
-                    .filter(vertex -> HasContainer.testAll(vertex, hasContainers))
-                    .iterator();
-        }
-
-        // linear scan
-        return IteratorUtils.filter(graph.edges(), edge -> HasContainer.testAll(edge, this.hasContainers));
+        Function<List<Object>, TinkermicEdge> edge = v -> new TinkermicEdge(graph, Optional.of(database), (UUID) v.get(1), v.get(0), (String) v.get(2));
+        return order == null ? elements(lookup(graph, database, Edge.class), edge) : ordered(graph, database, Edge.class, edge);
     }
 
     private Iterator<? extends Vertex> vertices() {
@@ -62,52 +81,321 @@ public class DatomicGraphStep<S, E extends Element> extends GraphStep<S, E> impl
 
         // ids are present, filter on them first
         if (ids != null && ids.length > 0)
-            return IteratorUtils.filter(graph.vertices(ids), vertex -> HasContainer.testAll(vertex, hasContainers));
+            return range(sorted(IteratorUtils.filter(graph.vertices(ids), vertex -> HasContainer.testAll(vertex, hasContainers))));
+
+        graph.tx().readWrite();
+        Database database = graph.database();
+
+        Function<List<Object>, TinkermicVertex> vertex = v -> new TinkermicVertex(graph, Optional.of(database), (UUID) v.get(1), v.get(0), (String) v.get(2));
+        return order == null ? elements(lookup(graph, database, Vertex.class), vertex) : ordered(graph, database, Vertex.class, vertex);
+    }
+
+    // Turn the triples of a lookup into elements. When the index answers all containers, the range is applied to the
+    // triples, so no element is created or tested for the skipped ones.
+    private <T extends Element> Iterator<T> elements(Lookup lookup, Function<List<Object>, T> element) {
+        if (lookup.answered.containsAll(hasContainers))
+            return IteratorUtils.map(range(lookup.triples.get()), element);
+        return range(IteratorUtils.filter(IteratorUtils.map(lookup.triples.get(), element), e -> HasContainer.testAll(e, hasContainers)));
+    }
+
+    // Emit the elements in the order of a property. When the property is stored under a single typed attribute and no
+    // more selective index applies, its AVET index is walked: in ascending order the walk stops at the end of the
+    // range. In descending order a heap bounded by the end of the range keeps the entity ids and values of the highest
+    // values, and elements are only created and tested for those, from the top down. When too few of them pass the
+    // containers, the walk is repeated with a heap twice as large. Otherwise the elements are sorted in memory.
+    private <T extends Element> Iterator<T> ordered(TinkermicGraph graph, Database database,
+                                                    Class<? extends Element> elementClass, Function<List<Object>, T> element) {
+        List<String> attributes = existingAttributes(database, orderTraversal.getPropertyKey(), elementClass);
+        if (attributes.size() != 1 || equalityLookup(graph, database, elementClass).isPresent() || withinLookup(graph, database, elementClass).isPresent()) {
+            Lookup lookup = lookup(graph, database, elementClass);
+            return range(sorted(IteratorUtils.filter(IteratorUtils.map(lookup.triples.get(), element), e -> HasContainer.testAll(e, hasContainers))));
+        }
+
+        if (order == Order.incr) {
+            Iterator<List<Object>> values = graph.helper().getPropertyValues(database, attributes.get(0));
+            return range(IteratorUtils.filter(
+                    IteratorUtils.map(values, v -> element.apply(graph.helper().getElement(database, v.get(0), elementClass))),
+                    e -> HasContainer.testAll(e, hasContainers)));
+        }
+
+        int size = (int) Math.min(Integer.MAX_VALUE, highRange == -1 ? Long.MAX_VALUE : highRange);
+        if (size == 0)
+            return Collections.emptyIterator();
+        Comparator<List<Object>> byValue = (a, b) -> ((Comparable) a.get(1)).compareTo(b.get(1));
+        for (int capacity = size; ; capacity = (int) Math.min(Integer.MAX_VALUE, 2L * capacity)) {
+            // the entity ids and values of the highest values, elements aren't created while walking the index
+            PriorityQueue<List<Object>> heap = new PriorityQueue<>(byValue);
+            long walked = 0;
+            Iterator<List<Object>> values = graph.helper().getPropertyValues(database, attributes.get(0));
+            while (values.hasNext()) {
+                List<Object> v = values.next();
+                walked++;
+                if (heap.size() >= capacity && byValue.compare(v, heap.peek()) <= 0)
+                    continue;
+                heap.add(v);
+                if (heap.size() > capacity)
+                    heap.poll();
+            }
+
+            List<List<Object>> top = new ArrayList<>(heap);
+            top.sort(byValue.reversed());
+            List<T> passed = new ArrayList<>();
+            for (List<Object> v : top) {
+                T e = element.apply(graph.helper().getElement(database, v.get(0), elementClass));
+                if (HasContainer.testAll(e, hasContainers) && passed.add(e) && passed.size() >= size)
+                    break;
+            }
+            if (passed.size() >= size || walked <= capacity || capacity == Integer.MAX_VALUE)
+                return range(passed.iterator());
+        }
+    }
+
+    // Sort elements in memory with the folded order, just like the order step would
+    private <T extends Element> Iterator<T> sorted(Iterator<T> elements) {
+        if (order == null)
+            return elements;
+        List<T> list = IteratorUtils.list(elements);
+        list.sort((a, b) -> order.compare(TraversalUtil.apply(a, (Traversal.Admin) orderTraversal), TraversalUtil.apply(b, (Traversal.Admin) orderTraversal)));
+        return list.iterator();
+    }
+
+    /**
+     * Count the elements this step emits. When the indexes answer all containers, the count is taken from the datoms
+     * directly and no element is created.
+     */
+    public long count() {
+        TinkermicGraph graph = (TinkermicGraph) this.getTraversal().getGraph().get();
+        Class<? extends Element> elementClass = Vertex.class.isAssignableFrom(this.returnClass) ? Vertex.class : Edge.class;
+        if (ids != null && ids.length > 0)
+            return IteratorUtils.count(Vertex.class.equals(elementClass) ? this.vertices() : this.edges());
+
+        graph.tx().readWrite();
+        Database database = graph.database();
+
+        Lookup lookup = lookup(graph, database, elementClass);
+        if (order != null || !lookup.answered.containsAll(hasContainers))
+            return IteratorUtils.count(Vertex.class.equals(elementClass) ? this.vertices() : this.edges());
+
+        long count = Math.max(0L, lookup.count.getAsLong() - lowRange);
+        return highRange == -1 ? count : Math.min(count, highRange - lowRange);
+    }
 
-        // get a label being search on
-        Optional<String> eqLabel = hasContainers.stream()
+    // Find the elements through the index of the properties they must hold, their label, or scan all of them
+    private Lookup lookup(TinkermicGraph graph, Database database, Class<? extends Element> elementClass) {
+        boolean vertices = Vertex.class.equals(elementClass);
+        return indexLookup(graph, database, elementClass).orElseGet(() -> eqLabel()
+                .map(label -> {
+                    String value = (String) label.getValue();
+                    return new Lookup(
+                            () -> (vertices ? graph.helper().listVertices(database, value) : graph.helper().listEdges(database, value)).iterator(),
+                            () -> vertices ? graph.helper().countVertices(database, value) : graph.helper().countEdges(database, value),
+                            label);
+                })
+                .orElseGet(() -> new Lookup(
+                        () -> (vertices ? graph.helper().listVertices(database) : graph.helper().listEdges(database)).iterator(),
+                        () -> vertices ? graph.helper().countVertices(database, null) : graph.helper().countEdges(database, null))));
+    }
+
+    // Skip to the lower bound of the range and stop at its upper bound
+    private <T> Iterator<T> range(Iterator<T> iterator) {
+        for (long i = 0; i < lowRange && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        return highRange == -1 ? iterator : Iterators.limit(iterator, (int) Math.min(Integer.MAX_VALUE, highRange - lowRange));
+    }
+
+    // The container of a label being searched on
+    private Optional<HasContainer> eqLabel() {
+        return hasContainers.stream()
                 .filter(hasContainer -> hasContainer.getKey().equals(T.label.getAccessor()))
                 .filter(hasContainer -> Compare.eq == hasContainer.getBiPredicate())
-                .map(hasContainer -> (String) hasContainer.getValue())
+                .filter(hasContainer -> hasContainer.getValue() instanceof String)
                 .findAny();
+    }
+
+    // Look up the elements through the index of a property they have to hold, in order of selectivity: a single value,
+    // a set of values and finally a range of values.
+    private Optional<Lookup> indexLookup(TinkermicGraph graph, Database database, Class<? extends Element> elementClass) {
+        Optional<Lookup> lookup = equalityLookup(graph, database, elementClass);
+        if (!lookup.isPresent())
+            lookup = withinLookup(graph, database, elementClass);
+        if (!lookup.isPresent())
+            lookup = rangeLookup(graph, database, elementClass);
+        return lookup;
+    }
+
+    private Optional<Lookup> equalityLookup(TinkermicGraph graph, Database database, Class<? extends Element> elementClass) {
+        for (HasContainer hasContainer : propertyContainers(Compare.eq)) {
+            Object value = hasContainer.getValue();
+            if (value == null || !TinkermicUtil.isSupportedType(value.getClass()))
+                continue;
 
-        if (eqLabel.isPresent()) {
-            graph.tx().readWrite();
-            Database database = graph.database();
+            List<String> attributes = existingAttributes(database, hasContainer.getKey(), elementClass);
+            // no element holds the property at all
+            if (attributes.isEmpty())
+                return Optional.of(Lookup.empty());
 
-            // find a vertex by label
-            return listVertices(eqLabel.get(), database).stream()
-                    .map(v -> new TinkermicVertex(graph, Optional.of(database), (UUID) v.get(1), v.get(0), (String) v.get(2)))
-                    .filter(vertex -> HasContainer.testAll(vertex, hasContainers))
-                    .iterator();
+            String attribute = TinkermicUtil.createKey(hasContainer.getKey(), value.getClass(), elementClass);
+            if (isOnlyAttribute(attribute, attributes))
+                return Optional.of(new Lookup(
+                        () -> graph.helper().getElementsByProperty(database, attribute, value, elementClass),
+                        () -> graph.helper().countElementsByProperty(database, attribute, value),
+                        hasContainer));
         }
+        return Optional.empty();
+    }
+
+    private Optional<Lookup> withinLookup(TinkermicGraph graph, Database database, Class<? extends Element> elementClass) {
+        for (HasContainer hasContainer : propertyContainers(Contains.within)) {
+            if (!(hasContainer.getValue() instanceof Collection))
+                continue;
+            Collection<?> values = (Collection<?>) hasContainer.getValue();
+            if (values.isEmpty())
+                return Optional.of(Lookup.empty());
+            if (values.stream().anyMatch(value -> value == null || !TinkermicUtil.isSupportedType(value.getClass())))
+                continue;
 
-        // linear scan
-        return IteratorUtils.filter(graph.vertices(), vertex -> HasContainer.testAll(vertex, hasContainers));
+            List<String> attributes = existingAttributes(database, hasContainer.getKey(), elementClass);
+            if (attributes.isEmpty())
+                return Optional.of(Lookup.empty());
+
+            // all values have to be stored under the same attribute
+            Set<String> valueAttributes = values.stream()
+                    .map(value -> TinkermicUtil.createKey(hasContainer.getKey(), value.getClass(), elementClass))
+                    .collect(Collectors.toSet());
+            String attribute = valueAttributes.iterator().next();
+            if (valueAttributes.size() == 1 && isOnlyAttribute(attribute, attributes))
+                return Optional.of(new Lookup(
+                        () -> graph.helper().getElementsByProperty(database, attribute, values, elementClass),
+                        () -> graph.helper().countElementsByProperty(database, attribute, values),
+                        hasContainer));
+        }
+        return Optional.empty();
     }
 
-    private Collection<List<Object>> listEdges(String label, Database database) {
-        return Peer.q("[:find ?v ?uuid ?label :in $ ?label :where " +
-                        "[?v :graph.element/id ?uuid] " +
-                        "[?v :graph.edge/label ?label]]",
-                database, label);
+    private Optional<Lookup> rangeLookup(TinkermicGraph graph, Database database, Class<? extends Element> elementClass) {
+        Map<String, List<HasContainer>> ranges = propertyContainers(Compare.gt, Compare.gte, Compare.lt, Compare.lte).stream()
+                .filter(hasContainer -> hasContainer.getValue() instanceof Comparable)
+                .filter(hasContainer -> TinkermicUtil.isSupportedType(hasContainer.getValue().getClass()))
+                .collect(Collectors.groupingBy(HasContainer::getKey, LinkedHashMap::new, Collectors.toList()));
+
+        for (Map.Entry<String, List<HasContainer>> range : ranges.entrySet()) {
+            List<String> attributes = existingAttributes(database, range.getKey(), elementClass);
+            if (attributes.isEmpty())
+                return Optional.of(Lookup.empty());
+            if (attributes.size() != 1)
+                continue;
+
+            // keep the tightest bounds of the containers whose values are stored under the attribute
+            String attribute = attributes.get(0);
+            HasContainer lower = null;
+            HasContainer upper = null;
+            for (HasContainer hasContainer : range.getValue()) {
+                if (!attribute.equals(TinkermicUtil.createKey(range.getKey(), hasContainer.getValue().getClass(), elementClass)))
+                    continue;
+                BiPredicate<?, ?> predicate = hasContainer.getBiPredicate();
+                if (predicate == Compare.gt || predicate == Compare.gte) {
+                    if (lower == null || tighter(hasContainer, lower, 1))
+                        lower = hasContainer;
+                } else {
+                    if (upper == null || tighter(hasContainer, upper, -1))
+                        upper = hasContainer;
+                }
+            }
+            if (lower == null && upper == null)
+                continue;
+
+            Object lowerValue = lower == null ? null : lower.getValue();
+            boolean lowerInclusive = lower != null && lower.getBiPredicate() == Compare.gte;
+            Object upperValue = upper == null ? null : upper.getValue();
+            boolean upperInclusive = upper != null && upper.getBiPredicate() == Compare.lte;
+            return Optional.of(new Lookup(
+                    () -> graph.helper().getElementsByPropertyRange(database, attribute, lowerValue, lowerInclusive, upperValue, upperInclusive, elementClass),
+                    () -> graph.helper().countElementsByPropertyRange(database, attribute, lowerValue, lowerInclusive, upperValue, upperInclusive),
+                    lower, upper));
+        }
+        return Optional.empty();
     }
 
-    private Collection<List<Object>> listVertices(String label, Database database) {
-        return Peer.q("[:find ?v ?uuid ?label :in $ ?label :where " +
-                        "[?v :graph.element/id ?uuid] " +
-                        "[?v :graph.vertex/label ?label]]",
-                database, label);
+    // Whether a bound is tighter than another one, in the given direction (1 for lower bounds, -1 for upper bounds)
+    private static boolean tighter(HasContainer bound, HasContainer other, int direction) {
+        int comparison = ((Comparable) TinkermicUtil.toIndexValue(bound.getValue()))
+                .compareTo(TinkermicUtil.toIndexValue(other.getValue())) * direction;
+        return comparison > 0 || (comparison == 0 && (bound.getBiPredicate() == Compare.gt || bound.getBiPredicate() == Compare.lt));
+    }
+
+    // The containers on property keys with one of the given predicates
+    private List<HasContainer> propertyContainers(BiPredicate<?, ?>... predicates) {
+        List<BiPredicate<?, ?>> predicateList = Arrays.asList(predicates);
+        return hasContainers.stream()
+                .filter(hasContainer -> !Graph.Hidden.isHidden(hasContainer.getKey()))
+                .filter(hasContainer -> predicateList.contains(hasContainer.getBiPredicate()))
+                .collect(Collectors.toList());
+    }
+
+    // The typed attributes a property key is stored under
+    private static List<String> existingAttributes(Database database, String key, Class<? extends Element> elementClass) {
+        return TinkermicUtil.createKeys(key, elementClass).stream()
+                .filter(attribute -> database.entid(TinkermicPropertyKeys.keyword(attribute)) != null)
+                .collect(Collectors.toList());
+    }
+
+    // An index lookup is only exact when the key is stored under a single typed attribute, as the in-memory comparison
+    // of HasContainer also matches numbers of other types
+    private static boolean isOnlyAttribute(String attribute, List<String> attributes) {
+        return attributes.size() == 1 && attributes.get(0).equals(attribute);
     }
 
     @Override
     public String toString() {
-        if (this.hasContainers.isEmpty())
+        if (this.hasContainers.isEmpty() && this.order == null && !hasRange())
             return super.toString();
-        else
-            return 0 == this.ids.length ?
-                    StringFactory.stepString(this, this.returnClass.getSimpleName().toLowerCase(), this.hasContainers) :
-                    StringFactory.stepString(this, this.returnClass.getSimpleName().toLowerCase(), Arrays.toString(this.ids), this.hasContainers);
+        List<Object> arguments = new ArrayList<>();
+        if (0 != this.ids.length)
+            arguments.add(Arrays.toString(this.ids));
+        if (!this.hasContainers.isEmpty())
+            arguments.add(this.hasContainers);
+        if (this.order != null)
+            arguments.add("order(" + this.orderTraversal.getPropertyKey() + "," + this.order + ")");
+        if (hasRange())
+            arguments.add("range(" + this.lowRange + "," + this.highRange + ")");
+        return StringFactory.stepString(this, this.returnClass.getSimpleName().toLowerCase(), arguments.toArray());
+    }
+
+    /**
+     * Only emit the elements within a range, as a folded {@code range()} step following this step would.
+     *
+     * @param low  The number of elements to skip
+     * @param high The number of elements after which to stop, or -1 for no upper bound
+     */
+    public void setRange(final long low, final long high) {
+        this.lowRange = low;
+        this.highRange = high;
+    }
+
+    /**
+     * Emit the elements ordered by a property, as a folded {@code order().by(key, order)} step following this step
+     * would. The elements have to hold the property, as only those are found through its index: the step needs a
+     * container on the key.
+     *
+     * @param orderTraversal The traversal of the property to order by
+     * @param order          Either {@link Order#incr} or {@link Order#decr}
+     */
+    public void setOrder(final ElementValueTraversal<?> orderTraversal, final Order order) {
+        this.orderTraversal = orderTraversal;
+        this.order = order;
+    }
+
+    public long getLowRange() {
+        return this.lowRange;
+    }
+
+    public long getHighRange() {
+        return this.highRange;
+    }
+
+    private boolean hasRange() {
+        return this.lowRange != 0 || this.highRange != -1;
     }
 
     @Override
@@ -122,6 +410,7 @@ public class DatomicGraphStep<S, E extends Element> extends GraphStep<S, E> impl
 
     @Override
     public int hashCode() {
-        return super.hashCode() ^ this.hasContainers.hashCode();
+        return super.hashCode() ^ this.hasContainers.hashCode() ^ Long.hashCode(this.lowRange) ^ Long.hashCode(this.highRange)
+                ^ Objects.hashCode(this.orderTraversal) ^ Objects.hashCode(this.order);
     }
 }
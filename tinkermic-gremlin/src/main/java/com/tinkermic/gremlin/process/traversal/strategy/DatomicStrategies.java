@@ -0,0 +1,48 @@
+package com.tinkermic.gremlin.process.traversal.strategy;
+
+import com.google.common.collect.ImmutableMap;
+import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicCountStrategy;
+import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicGraphStepStrategy;
+import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicVertexStepStrategy;
+import org.apache.commons.configuration.Configuration;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The pack of provider strategies installed for {@link com.tinkermic.gremlin.structure.TinkermicGraph}. Every
+ * strategy is enabled by default and can be switched off through its configuration key.
+ */
+public final class DatomicStrategies {
+    public static final String GRAPH_STEP = "tinkermic.strategy.graphStep";
+    public static final String VERTEX_STEP = "tinkermic.strategy.vertexStep";
+    public static final String COUNT = "tinkermic.strategy.count";
+
+    private static final Map<String, TraversalStrategy<?>> STRATEGIES = ImmutableMap.<String, TraversalStrategy<?>>builder()
+            .put(GRAPH_STEP, DatomicGraphStepStrategy.instance())
+            .put(VERTEX_STEP, DatomicVertexStepStrategy.instance())
+            .put(COUNT, DatomicCountStrategy.instance())
+            .build();
+
+    private DatomicStrategies() {
+    }
+
+    /**
+     * All provider strategies, to be registered with the global strategy cache.
+     */
+    public static TraversalStrategy<?>[] all() {
+        return STRATEGIES.values().toArray(new TraversalStrategy<?>[STRATEGIES.size()]);
+    }
+
+    /**
+     * The classes of the strategies that are switched off in the given configuration.
+     */
+    public static List<Class<? extends TraversalStrategy>> disabled(Configuration configuration) {
+        return STRATEGIES.entrySet().stream()
+                .filter(entry -> !configuration.getBoolean(entry.getKey(), true))
+                .map(entry -> (Class<? extends TraversalStrategy>) entry.getValue().getClass())
+                .collect(Collectors.toList());
+    }
+}
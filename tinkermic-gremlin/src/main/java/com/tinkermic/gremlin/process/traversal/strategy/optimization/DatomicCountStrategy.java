@@ -0,0 +1,54 @@
+package com.tinkermic.gremlin.process.traversal.strategy.optimization;
+
+import com.tinkermic.gremlin.process.traversal.step.map.DatomicCountGlobalStep;
+import com.tinkermic.gremlin.process.traversal.step.sideEffect.DatomicGraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Replaces {@code g.V().count()} and {@code g.E().count()}, with any has() and range() steps folded into the graph
+ * step, by a {@link DatomicCountGlobalStep} that counts the index datoms instead of the elements.
+ */
+public final class DatomicCountStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy>
+        implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    private static final DatomicCountStrategy INSTANCE = new DatomicCountStrategy();
+
+    private static final Set<Class<? extends ProviderOptimizationStrategy>> PRIORS = Collections.singleton(DatomicGraphStepStrategy.class);
+
+    private DatomicCountStrategy() {
+    }
+
+    @Override
+    public void apply(final Traversal.Admin<?, ?> traversal) {
+        if (!(traversal.getParent() instanceof EmptyStep) || traversal.getSteps().size() < 2)
+            return;
+
+        final Step<?, ?> startStep = traversal.getStartStep();
+        final Step<?, ?> nextStep = startStep.getNextStep();
+        if (!(startStep instanceof DatomicGraphStep) || !((DatomicGraphStep) startStep).isStartStep() || !(nextStep instanceof CountGlobalStep))
+            return;
+
+        final DatomicCountGlobalStep<?> countStep = new DatomicCountGlobalStep<>(traversal, (DatomicGraphStep<?, ?>) startStep);
+        TraversalHelper.copyLabels(nextStep, countStep, false);
+        traversal.removeStep(nextStep);
+        TraversalHelper.replaceStep((Step) startStep, countStep, traversal);
+    }
+
+    @Override
+    public Set<Class<? extends ProviderOptimizationStrategy>> applyPrior() {
+        return PRIORS;
+    }
+
+    public static DatomicCountStrategy instance() {
+        return INSTANCE;
+    }
+}
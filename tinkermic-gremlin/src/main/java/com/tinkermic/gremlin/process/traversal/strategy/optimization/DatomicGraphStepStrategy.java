@@ -1,16 +1,23 @@
 package com.tinkermic.gremlin.process.traversal.strategy.optimization;
 
 import com.tinkermic.gremlin.process.traversal.step.sideEffect.DatomicGraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
 import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.ElementValueTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
 import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.javatuples.Pair;
+
+import java.util.Comparator;
 
 public final class DatomicGraphStepStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy>
         implements TraversalStrategy.ProviderOptimizationStrategy {
@@ -37,9 +44,41 @@ public final class DatomicGraphStepStrategy extends AbstractTraversalStrategy<Tr
                 }
                 currentStep = currentStep.getNextStep();
             }
+            // an order by a single property followed by a range at the start of the traversal is served by the index,
+            // which only holds the elements having the property: a container on the key has to drop the others anyway
+            if (currentStep instanceof OrderGlobalStep && currentStep.getNextStep() instanceof RangeGlobalStep
+                    && datomicGraphStep.isStartStep() && isPropertyOrder((OrderGlobalStep<?, ?>) currentStep)
+                    && holdsOrderKey(datomicGraphStep, (OrderGlobalStep<?, ?>) currentStep)) {
+                final OrderGlobalStep<?, ?> orderGlobalStep = (OrderGlobalStep<?, ?>) currentStep;
+                final Pair<? extends Traversal.Admin<?, ?>, ? extends Comparator<?>> comparator = orderGlobalStep.getComparators().get(0);
+                datomicGraphStep.setOrder((ElementValueTraversal<?>) comparator.getValue0(), (Order) comparator.getValue1());
+                TraversalHelper.copyLabels(orderGlobalStep, orderGlobalStep.getPreviousStep(), false);
+                currentStep = orderGlobalStep.getNextStep();
+                traversal.removeStep(orderGlobalStep);
+            }
+            // a range directly following the start of the traversal only depends on the elements of this step
+            if (currentStep instanceof RangeGlobalStep && datomicGraphStep.isStartStep()) {
+                final RangeGlobalStep<?> rangeGlobalStep = (RangeGlobalStep<?>) currentStep;
+                datomicGraphStep.setRange(rangeGlobalStep.getLowRange(), rangeGlobalStep.getHighRange());
+                TraversalHelper.copyLabels(rangeGlobalStep, rangeGlobalStep.getPreviousStep(), false);
+                traversal.removeStep(rangeGlobalStep);
+            }
         }
     }
 
+    private static boolean isPropertyOrder(final OrderGlobalStep<?, ?> orderGlobalStep) {
+        if (orderGlobalStep.getComparators().size() != 1)
+            return false;
+        final Pair<? extends Traversal.Admin<?, ?>, ? extends Comparator<?>> comparator = orderGlobalStep.getComparators().get(0);
+        return comparator.getValue0() instanceof ElementValueTraversal
+                && (comparator.getValue1() == Order.incr || comparator.getValue1() == Order.decr);
+    }
+
+    private static boolean holdsOrderKey(final DatomicGraphStep<?, ?> datomicGraphStep, final OrderGlobalStep<?, ?> orderGlobalStep) {
+        final String key = ((ElementValueTraversal<?>) orderGlobalStep.getComparators().get(0).getValue0()).getPropertyKey();
+        return datomicGraphStep.getHasContainers().stream().anyMatch(hasContainer -> key.equals(hasContainer.getKey()));
+    }
+
     public static DatomicGraphStepStrategy instance() {
         return INSTANCE;
     }
@@ -0,0 +1,42 @@
+package com.tinkermic.gremlin.process.traversal.strategy.optimization;
+
+import com.tinkermic.gremlin.process.traversal.step.map.DatomicVertexStep;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.Mutating;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+
+/**
+ * Replaces each {@link VertexStep} with a {@link DatomicVertexStep}, which expands a whole barrier of traversers
+ * with one Datomic query. Traversals that mutate the graph are left alone, as batching would reorder their writes
+ * with respect to the reads.
+ */
+public final class DatomicVertexStepStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy>
+        implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    private static final DatomicVertexStepStrategy INSTANCE = new DatomicVertexStepStrategy();
+
+    private DatomicVertexStepStrategy() {
+    }
+
+    @Override
+    public void apply(final Traversal.Admin<?, ?> traversal) {
+        if (TraversalHelper.hasStepOfAssignableClassRecursively(Mutating.class, TraversalHelper.getRootTraversal(traversal)))
+            return;
+
+        final int batchSize = traversal.getGraph()
+                .filter(graph -> graph instanceof TinkermicGraph)
+                .map(graph -> ((TinkermicGraph) graph).vertexStepBatchSize())
+                .orElse(DatomicVertexStep.DEFAULT_BATCH_SIZE);
+        for (final VertexStep originalVertexStep : TraversalHelper.getStepsOfClass(VertexStep.class, traversal)) {
+            TraversalHelper.replaceStep(originalVertexStep, new DatomicVertexStep<>(originalVertexStep, batchSize), traversal);
+        }
+    }
+
+    public static DatomicVertexStepStrategy instance() {
+        return INSTANCE;
+    }
+}
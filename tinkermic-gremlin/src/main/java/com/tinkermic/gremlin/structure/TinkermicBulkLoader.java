@@ -0,0 +1,346 @@
+package com.tinkermic.gremlin.structure;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import datomic.Connection;
+import datomic.Database;
+import datomic.Peer;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static datomic.Connection.DB_AFTER;
+import static datomic.Connection.TEMPIDS;
+
+/**
+ * Loads vertices and edges straight into Datomic transactions of a fixed size, bypassing the bookkeeping of
+ * {@link TinkermicTransaction}. Vertices are identified by a key chosen by the caller, such as the id of the
+ * vertex in the source data, and edges refer to their vertices by that key.
+ * <p>
+ * Batches are submitted with {@code transactAsync}, with a bounded number in flight. The entity ids of the vertices
+ * are collected as their batches complete, so edges can refer to vertices loaded in any earlier batch. An edge
+ * referring to a vertex of a batch that is still in flight waits for that batch first. Property attributes are
+ * installed before the batch using them is submitted, and can be declared up front.
+ * <p>
+ * With {@link #allowForwardReferences()}, edges can also refer to vertices that are loaded later, as in adjacency list
+ * dumps. Such an edge is held back in memory until both of its vertices are loaded, and then goes into the batch of
+ * the vertex loaded last, which can grow past the batch size by the edges waiting for that vertex. Edges still held
+ * back when the loader is closed are never written.
+ * <p>
+ * A loader is not thread safe. Nothing is visible in the graph before the batches holding it complete, call
+ * {@link #flush()} or {@link #close()} to wait for all of them. Once a batch fails the loader can't be used any
+ * longer, as later batches may refer to the vertices it didn't load.
+ */
+public final class TinkermicBulkLoader implements AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private static final class Batch {
+        private final List<Object> statements = Lists.newArrayList();
+        // vertex key -> temp id
+        private final Map<Object, Object> vertices = Maps.newHashMap();
+        // temp id -> UUID, of all elements
+        private final Map<Object, UUID> uuids = Maps.newHashMap();
+        private Future<Map> result;
+    }
+
+    // An edge referring to a vertex that isn't loaded yet
+    private static final class HeldEdge {
+        private final Object outKey;
+        private final Object inKey;
+        private final Map statement;
+
+        HeldEdge(Object outKey, Object inKey, Map statement) {
+            this.outKey = outKey;
+            this.inKey = inKey;
+            this.statement = statement;
+        }
+    }
+
+    private final TinkermicGraph graph;
+    private final Connection connection;
+    private final int batchSize;
+    private final int maxInFlight;
+
+    // vertex key -> entity id, for the vertices of completed batches
+    private final TinkermicEntityIdMap entityIds = new TinkermicEntityIdMap();
+    // vertex key -> the edges held back until that vertex is loaded
+    private final Map<Object, List<HeldEdge>> held = Maps.newHashMap();
+    private boolean forwardReferences;
+    // vertex key -> batch, for the vertices of batches in flight
+    private final Map<Object, Batch> pending = Maps.newHashMap();
+    private final Deque<Batch> inFlight = new ArrayDeque<>();
+    private Batch batch = new Batch();
+    // the failure of a batch, after which nothing is loaded any more
+    private RuntimeException failure;
+
+    private long vertexCount;
+    private long edgeCount;
+
+    /**
+     * @param batchSize   The number of elements per transaction
+     * @param maxInFlight The number of transactions submitted without waiting for their result
+     */
+    TinkermicBulkLoader(TinkermicGraph graph, int batchSize, int maxInFlight) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be positive");
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be positive");
+        this.graph = graph;
+        this.connection = graph.connection();
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Allow edges to refer to vertices that aren't loaded yet. Closing the loader fails, without writing the edges,
+     * if any of them is never loaded.
+     */
+    public TinkermicBulkLoader allowForwardReferences() {
+        forwardReferences = true;
+        return this;
+    }
+
+    /**
+     * Install the attribute of a vertex property before any vertex holding it is loaded.
+     */
+    public TinkermicBulkLoader declareVertexProperty(String key, Class<?> valueClass) {
+        declare(TinkermicUtil.createKey(key, valueClass, Vertex.class), valueClass);
+        return this;
+    }
+
+    /**
+     * Install the attribute of an edge property before any edge holding it is loaded.
+     */
+    public TinkermicBulkLoader declareEdgeProperty(String key, Class<?> valueClass) {
+        declare(TinkermicUtil.createKey(key, valueClass, Edge.class), valueClass);
+        return this;
+    }
+
+    /**
+     * Load a vertex.
+     *
+     * @param key       The key edges refer to the vertex by, unique within the loader. Integral keys of the same
+     *                  value are the same key, whatever their type
+     * @param label     The vertex label
+     * @param keyValues The vertex properties, as alternating keys and values
+     * @return The id of the vertex
+     */
+    public UUID addVertex(Object key, String label, Object... keyValues) {
+        checkNotFailed();
+        if (null == key) throw Graph.Exceptions.argumentCanNotBeNull("key");
+        key = TinkermicEntityIdMap.normalize(key);
+        ElementHelper.validateLabel(label);
+        if (batch.vertices.containsKey(key) || pending.containsKey(key) || entityIds.containsKey(key))
+            throw new IllegalArgumentException("A vertex with key " + key + " was loaded already");
+
+        UUID uuid = Peer.squuid();
+        Object tempId = Peer.tempid(":db.part/user");
+        Map statement = TinkermicUtil.map(":db/id", tempId,
+                TinkermicHelper.VERTEX_LABEL, label,
+                TinkermicHelper.ELEMENT_ID, uuid);
+        Map<String, Object> unique = properties(statement, Vertex.class, keyValues);
+
+        // a vertex holding the value of a unique identity another vertex holds fails its batch
+        batch.statements.add(TinkermicHelper.vertexStatement(statement, unique, false));
+        batch.vertices.put(key, tempId);
+        batch.uuids.put(tempId, uuid);
+        vertexCount++;
+
+        // the edges waiting for the vertex go into its batch, so they don't wait for the batch to complete
+        List<HeldEdge> waiting = held.remove(key);
+        if (waiting != null) {
+            for (HeldEdge edge : waiting) {
+                writeEdge(edge.outKey, edge.inKey, edge.statement);
+            }
+        }
+        submitIfFull();
+        return uuid;
+    }
+
+    /**
+     * Load an edge between two vertices loaded before, or loaded later when forward references are allowed.
+     *
+     * @param outKey    The key of the out vertex
+     * @param inKey     The key of the in vertex
+     * @param label     The edge label
+     * @param keyValues The edge properties, as alternating keys and values
+     * @return The id of the edge
+     */
+    public UUID addEdge(Object outKey, Object inKey, String label, Object... keyValues) {
+        checkNotFailed();
+        ElementHelper.validateLabel(label);
+        outKey = TinkermicEntityIdMap.normalize(outKey);
+        inKey = TinkermicEntityIdMap.normalize(inKey);
+
+        UUID uuid = Peer.squuid();
+        Map statement = TinkermicUtil.map(TinkermicHelper.EDGE_LABEL, label, TinkermicHelper.ELEMENT_ID, uuid);
+        properties(statement, Edge.class, keyValues);
+
+        writeEdge(outKey, inKey, statement);
+        submitIfFull();
+        return uuid;
+    }
+
+    // Hold an edge back until the vertices it refers to are loaded, returns whether it was held
+    private boolean hold(Object outKey, Object inKey, Map statement) {
+        if (!forwardReferences) return false;
+        Object missing = !loaded(outKey) ? outKey : !loaded(inKey) ? inKey : null;
+        if (missing == null) return false;
+        held.computeIfAbsent(missing, k -> Lists.newArrayList()).add(new HeldEdge(outKey, inKey, statement));
+        return true;
+    }
+
+    // Add an edge to the current batch, unless one of its vertices is still to be loaded
+    private void writeEdge(Object outKey, Object inKey, Map statement) {
+        if (hold(outKey, inKey, statement)) return;
+        Object tempId = Peer.tempid(":db.part/user");
+        statement.put(":db/id", tempId);
+        statement.put(TinkermicHelper.OUT_VERTEX, vertex(outKey));
+        statement.put(TinkermicHelper.IN_VERTEX, vertex(inKey));
+
+        batch.statements.add(statement);
+        batch.uuids.put(tempId, (UUID) statement.get(TinkermicHelper.ELEMENT_ID));
+        edgeCount++;
+    }
+
+    private boolean loaded(Object key) {
+        return batch.vertices.containsKey(key) || pending.containsKey(key) || entityIds.containsKey(key);
+    }
+
+    /**
+     * Submit the current batch and wait for all batches in flight.
+     */
+    public void flush() {
+        checkNotFailed();
+        submit();
+        while (!inFlight.isEmpty()) {
+            complete(inFlight.removeFirst());
+        }
+    }
+
+    /**
+     * Flush the loader. The edges still held back for vertices that were never loaded are dropped.
+     *
+     * @throws IllegalStateException When edges were dropped
+     */
+    @Override
+    public void close() {
+        flush();
+        if (!held.isEmpty()) {
+            throw new IllegalStateException(held.size() + " vertices were referred to by edges but never loaded, " +
+                    "such as the vertex with key " + held.keySet().iterator().next() + ", their edges weren't loaded");
+        }
+    }
+
+    public long vertexCount() {
+        return vertexCount;
+    }
+
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    private void checkNotFailed() {
+        if (failure != null) throw new IllegalStateException("A batch of the loader failed", failure);
+    }
+
+    // Put the properties into a statement, and return the values of unique identity attributes among them
+    private Map<String, Object> properties(Map statement, Class<? extends Element> elementClass, Object... keyValues) {
+        ElementHelper.legalPropertyKeyValueArray(keyValues);
+        Map<String, Object> unique = Collections.emptyMap();
+        for (int i = 0; i < keyValues.length; i = i + 2) {
+            if (!(keyValues[i] instanceof String))
+                throw new IllegalArgumentException("Only property keys can be loaded: " + keyValues[i]);
+            String key = (String) keyValues[i];
+            Object value = keyValues[i + 1];
+            ElementHelper.validateProperty(key, value);
+            if (!TinkermicElement.PROPERTY_KEY_MATCHER.matchesAllOf(key))
+                throw TinkermicElement.propertyKeyIllegalSymbol(key);
+
+            String attribute = TinkermicUtil.createKey(key, value.getClass(), elementClass);
+            declare(attribute, value.getClass());
+            statement.put(attribute, value);
+            if (graph.schema().isUnique(attribute)) {
+                if (unique.isEmpty()) unique = Maps.newLinkedHashMap();
+                unique.put(attribute, value);
+            }
+        }
+        return unique;
+    }
+
+    private void declare(String attribute, Class<?> valueClass) {
+        if (!graph.schema().contains(attribute)) {
+            graph.schema().install(connection, Collections.singletonMap(attribute, valueClass));
+        }
+    }
+
+    // The temp id of a vertex of the current batch, or the entity id of a vertex of an earlier batch
+    private Object vertex(Object key) {
+        Object tempId = batch.vertices.get(key);
+        if (tempId != null) return tempId;
+
+        Batch loading = pending.get(key);
+        if (loading != null) {
+            Batch completed;
+            do {
+                completed = inFlight.removeFirst();
+                complete(completed);
+            } while (completed != loading);
+        }
+
+        Object entityId = entityIds.get(key);
+        if (entityId != null) return entityId;
+        throw new IllegalArgumentException("No vertex was loaded with key " + key);
+    }
+
+    private void submitIfFull() {
+        if (batch.statements.size() >= batchSize) {
+            submit();
+        }
+    }
+
+    private void submit() {
+        if (batch.statements.isEmpty()) return;
+        while (inFlight.size() >= maxInFlight) {
+            complete(inFlight.removeFirst());
+        }
+        batch.result = connection.transactAsync(batch.statements);
+        inFlight.addLast(batch);
+        for (Object key : batch.vertices.keySet()) {
+            pending.put(key, batch);
+        }
+        batch = new Batch();
+    }
+
+    // Wait for a batch and collect the entity ids of its elements
+    private void complete(Batch completed) {
+        Map result;
+        try {
+            result = completed.result.get();
+        } catch (InterruptedException | ExecutionException e) {
+            // the vertices of the batch were never loaded, nothing may wait for them or refer to them any more
+            completed.vertices.keySet().forEach(pending::remove);
+            failure = new RuntimeException(TinkermicGraph.DATOMIC_EXCEPTION_MESSAGE, e);
+            throw failure;
+        }
+        Database db = (Database) result.get(DB_AFTER);
+        Map tempIds = (Map) result.get(TEMPIDS);
+        for (Map.Entry<Object, Object> vertex : completed.vertices.entrySet()) {
+            entityIds.put(vertex.getKey(), Peer.resolveTempid(db, tempIds, vertex.getValue()));
+            pending.remove(vertex.getKey());
+        }
+        for (Map.Entry<Object, UUID> element : completed.uuids.entrySet()) {
+            graph.idCache().put(element.getValue(), Peer.resolveTempid(db, tempIds, element.getKey()), db.basisT());
+        }
+    }
+}
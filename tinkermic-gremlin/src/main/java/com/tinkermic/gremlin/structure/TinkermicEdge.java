@@ -1,7 +1,6 @@
 package com.tinkermic.gremlin.structure;
 
 import datomic.Database;
-import datomic.Entity;
 import datomic.Util;
 import org.apache.tinkerpop.gremlin.structure.*;
 import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
@@ -49,10 +48,9 @@ public final class TinkermicEdge extends TinkermicElement implements Edge {
                     key -> ElementHelper.keyExists(key, propertyKeys));
             return IteratorUtils.map(filter, this::property);
         } else {
-            Entity entity = database().entity(graphId);
-            return entity.keySet().stream()
-                    .filter(key -> ElementHelper.keyExists(TinkermicUtil.getPropertyName(key).get(), propertyKeys) && !TinkermicUtil.isReservedKey(key) && !Graph.Hidden.isHidden(key))
-                    .map(key -> (Property<V>) new TinkermicProperty<>(this, TinkermicUtil.getPropertyName(key).get(), (V) entity.get(key)))
+            return propertyMap().entrySet().stream()
+                    .filter(entry -> ElementHelper.keyExists(entry.getKey(), propertyKeys))
+                    .map(entry -> (Property<V>) new TinkermicProperty<>(this, entry.getKey(), (V) entry.getValue()))
                     .iterator();
         }
     }
@@ -74,14 +72,8 @@ public final class TinkermicEdge extends TinkermicElement implements Edge {
             }
             return Property.empty();
         } else {
-            Entity entity = database().entity(graphId);
-            for (String property : entity.keySet()) {
-                Optional<String> propertyName = TinkermicUtil.getPropertyName(property);
-                if (propertyName.isPresent() && key.equals(propertyName.get())) {
-                    return new TinkermicProperty<>(this, key, (V) entity.get(property));
-                }
-            }
-            return Property.empty();
+            Object value = propertyMap().get(key);
+            return value == null ? Property.empty() : new TinkermicProperty<>(this, key, (V) value);
         }
     }
 
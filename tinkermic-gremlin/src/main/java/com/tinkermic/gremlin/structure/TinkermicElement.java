@@ -3,9 +3,10 @@ package com.tinkermic.gremlin.structure;
 import com.google.common.base.CharMatcher;
 import com.google.common.collect.Sets;
 import datomic.Database;
-import datomic.Util;
+import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Element;
 import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
 
 import java.util.*;
@@ -19,8 +20,8 @@ public abstract class TinkermicElement implements Element {
 
     final Optional<Database> database;
     final TinkermicGraph graph;
-    final UUID uuid;
-    Object graphId; // the datomic entity id
+    volatile UUID uuid; // an upserted vertex that adopts a stored vertex takes its id once committed
+    volatile Object graphId; // the datomic entity id, resolved on the committing thread of an asynchronous commit
     final String label;
     boolean removed = false;
 
@@ -67,20 +68,73 @@ public abstract class TinkermicElement implements Element {
                     });
             return properties;
         } else {
-            return graph.helper().getPropertyKeys(database(), graphId);
+            return Sets.newHashSet(propertyMap().keySet());
         }
     }
 
-    void removeProperty(String key) {
+    /**
+     * The properties of this element in its database, keyed by property name. Reads from database values of the
+     * connection go through the graph's element cache.
+     */
+    Map<String, Object> propertyMap() {
+        Database db = database();
+        return graph.elementCache().properties(db, graphId, !graph.tx().isSpeculative(db));
+    }
+
+    /**
+     * Add to the long value of a property, counting from 0 when the element doesn't hold it. The addition to a stored
+     * element is made on the transactor by the {@code :graph.fn/increment} transaction function, so the value isn't
+     * read and concurrent increments of the same element never conflict, unlike a compare-and-swap on a
+     * {@code _version} property.
+     *
+     * @param key   The property key
+     * @param delta The amount to add
+     */
+    public void increment(String key, long delta) {
+        Class<? extends Element> elementClass = this instanceof Edge ? Edge.class : Vertex.class;
+        if (removed) throw elementRemoved(elementClass, id());
         if (!PROPERTY_KEY_MATCHER.matchesAllOf(key)) throw propertyKeyIllegalSymbol(key);
+        ElementHelper.validateProperty(key, delta);
+
+        graph.tx().readWrite();
 
-        Object oldValue = property(key).value();
-        String keyKeyword = TinkermicUtil.createKey(key, oldValue.getClass(), getClass());
+        // If the property does not exist yet, create the attribute definition
+        if (elementClass == Edge.class) {
+            graph.tx().addEdgeAttribute(key, Long.class);
+        } else {
+            graph.tx().addVertexAttribute(key, Long.class);
+        }
 
+        String keyKeyword = TinkermicUtil.createKey(key, Long.class, elementClass);
         if (graph.tx().newInThisTx(this)) {
-            graph.tx().removeProperty(this, keyKeyword);
+            // the pending statement holds the value
+            Object value = graph.tx().getStatements(this).get(keyKeyword);
+            graph.tx().setProperty(this, keyKeyword, (value == null ? 0L : ((Number) value).longValue()) + delta);
         } else {
-            graph.tx().mod(this, Util.list(":db/retract", graphId, keyKeyword, oldValue));
+            graph.tx().increment(this, keyKeyword, delta);
+        }
+    }
+
+    /**
+     * Subtract from the long value of a property, see {@link #increment}.
+     *
+     * @param key   The property key
+     * @param delta The amount to subtract
+     */
+    public void decrement(String key, long delta) {
+        increment(key, -delta);
+    }
+
+    void removeProperty(String key) {
+        if (!PROPERTY_KEY_MATCHER.matchesAllOf(key)) throw propertyKeyIllegalSymbol(key);
+
+        if (graph.tx().newInThisTx(this)) {
+            // the value is taken from the pending statement, it determines the attribute to drop from it
+            Object value = property(key).value();
+            graph.tx().removeProperty(this, TinkermicUtil.createKey(key, value.getClass(), getClass()));
+        } else {
+            // the value type isn't known without reading it, so every installed attribute of the key is retracted
+            graph.tx().retractProperty(this, TinkermicPropertyKeys.attributes(key, getClass()));
         }
     }
 
@@ -94,6 +148,16 @@ public abstract class TinkermicElement implements Element {
         return ElementHelper.hashCode(this);
     }
 
+    /**
+     * The Datomic entity id of this element in the given database. Elements created in the current transaction only
+     * hold a temporary id, which is resolved through their UUID.
+     */
+    public Object entityId(Database db) {
+        if (!graph.tx().newInThisTx(this)) return graphId;
+        Object id = graph.tx().resolveTempid(db, this);
+        return id != null ? id : graph.idFromUuid(db, uuid);
+    }
+
     protected Database database() {
         return database.orElse(graph.database());
     }
@@ -0,0 +1,108 @@
+package com.tinkermic.gremlin.structure;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import datomic.Database;
+import datomic.Entity;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Cache of decoded element property maps. A Datomic database value is immutable, so the properties of an entity
+ * stay the same for as long as the basis-t of the database does: entries are keyed by basis-t and entity id and
+ * shared by every traversal reading the same database value. Speculative databases, built with {@code db.with()}
+ * from the pending statements of a transaction, don't have a basis-t of their own and are never cached.
+ */
+public final class TinkermicElementCache {
+    public static final long DEFAULT_MAX_WEIGHT = 1000000L;
+
+    private static final class Key {
+        private final long basisT;
+        private final Object entityId;
+
+        Key(long basisT, Object entityId) {
+            this.basisT = basisT;
+            this.entityId = entityId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return basisT == key.basisT && entityId.equals(key.entityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(basisT, entityId);
+        }
+    }
+
+    private final Cache<Key, Map<String, Object>> cache;
+
+    /**
+     * @param maxWeight The maximum number of properties held by the cached elements, where every element counts
+     *                  for one more. A weight of 0 disables the cache.
+     */
+    public TinkermicElementCache(long maxWeight) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, Map<String, Object> properties) -> properties.size() + 1)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The properties of an element, keyed by property name.
+     *
+     * @param db        The database to read the element from
+     * @param entityId  The entity id of the element
+     * @param cacheable Whether the database is a real database value, rather than a speculative one
+     * @return An immutable map of property names to values
+     */
+    public Map<String, Object> properties(Database db, Object entityId, boolean cacheable) {
+        if (!cacheable) {
+            return decode(db.entity(entityId));
+        }
+        try {
+            return cache.get(new Key(db.basisT(), entityId), () -> decode(db.entity(entityId)));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    // Decode the attributes of an entity into property names, leaving out the graph model and hidden attributes
+    private static Map<String, Object> decode(Entity entity) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (String attribute : entity.keySet()) {
+            if (TinkermicUtil.isReservedKey(attribute) || Graph.Hidden.isHidden(attribute)) continue;
+            Optional<String> propertyName = TinkermicUtil.getPropertyName(attribute);
+            propertyName.ifPresent(name -> properties.putIfAbsent(name, entity.get(attribute)));
+        }
+        return Collections.unmodifiableMap(properties);
+    }
+}
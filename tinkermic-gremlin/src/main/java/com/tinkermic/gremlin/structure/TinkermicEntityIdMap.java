@@ -0,0 +1,88 @@
+package com.tinkermic.gremlin.structure;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+
+/**
+ * Map from the ids vertices have in source data to their Datomic entity ids, for loading graphs too large to hold a
+ * boxed map entry per vertex. Integral source ids, the common case, are kept in an open addressing table of
+ * primitive longs; other ids fall back to a regular map. Byte, short, int and long ids of the same value map to the
+ * same entry.
+ */
+final class TinkermicEntityIdMap {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long EMPTY = 0L; // entity ids are always positive
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int size;
+    private final Map<Object, Object> others = Maps.newHashMap();
+
+    Object get(Object key) {
+        if (!isIntegral(key)) return others.get(key);
+        long id = ((Number) key).longValue();
+        for (int i = slot(id, keys.length); values[i] != EMPTY; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == id) return values[i];
+        }
+        return null;
+    }
+
+    boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    void put(Object key, Object entityId) {
+        if (!isIntegral(key)) {
+            others.put(key, entityId);
+            return;
+        }
+        if ((size + 1) * 4 > keys.length * 3) resize();
+        if (insert(keys, values, ((Number) key).longValue(), ((Number) entityId).longValue())) size++;
+    }
+
+    int size() {
+        return size + others.size();
+    }
+
+    private void resize() {
+        long[] resizedKeys = new long[keys.length * 2];
+        long[] resizedValues = new long[values.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != EMPTY) insert(resizedKeys, resizedValues, keys[i], values[i]);
+        }
+        keys = resizedKeys;
+        values = resizedValues;
+    }
+
+    // Returns whether the key was added rather than replaced
+    private static boolean insert(long[] keys, long[] values, long key, long value) {
+        int i = slot(key, keys.length);
+        while (values[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return false;
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        keys[i] = key;
+        values[i] = value;
+        return true;
+    }
+
+    private static int slot(long key, int capacity) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    /**
+     * The key an id is stored under: integral ids are the same key as the long of the same value.
+     */
+    static Object normalize(Object key) {
+        return isIntegral(key) && !(key instanceof Long) ? ((Number) key).longValue() : key;
+    }
+
+    private static boolean isIntegral(Object key) {
+        return key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte;
+    }
+}
@@ -1,16 +1,23 @@
 package com.tinkermic.gremlin.structure;
 
 import com.google.common.base.CharMatcher;
+import com.tinkermic.gremlin.process.traversal.step.map.DatomicVertexStep;
+import com.tinkermic.gremlin.process.traversal.strategy.DatomicStrategies;
 import datomic.*;
 import org.apache.commons.configuration.*;
 import org.apache.tinkerpop.gremlin.process.computer.GraphComputer;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.structure.*;
 import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
 import org.apache.tinkerpop.gremlin.structure.util.GraphFactory;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 @Graph.OptIn(Graph.OptIn.SUITE_STRUCTURE_STANDARD)
@@ -19,14 +26,34 @@ import java.util.stream.Stream;
 @Graph.OptIn("com.tinkermic.gremlin.DatomicStrategySuite")
 public class TinkermicGraph implements Graph {
     public static final String DATOMIC_DB_URI = "tinkermic.datomic.uri";
+    public static final String DATOMIC_INDEX_ADJACENCY = "tinkermic.adjacency.index";
+    public static final String DATOMIC_VERTEX_STEP_BATCH_SIZE = "tinkermic.strategy.vertexStep.batchSize";
+    public static final String DATOMIC_ELEMENT_CACHE_WEIGHT = "tinkermic.cache.elements.maxWeight";
+    public static final String DATOMIC_ID_CACHE_SIZE = "tinkermic.cache.ids.maxSize";
+    public static final String DATOMIC_GROUP_COMMIT_WINDOW = "tinkermic.commit.group.windowMillis";
+    public static final String DATOMIC_GROUP_COMMIT_SIZE = "tinkermic.commit.group.maxStatements";
+    public static final String DATOMIC_TX_REPORT_LISTENER = "tinkermic.txReports.listen";
+    public static final int DEFAULT_GROUP_COMMIT_SIZE = 10000;
     static final String DATOMIC_EXCEPTION_MESSAGE = "An error occurred within the Datomic datastore.";
 
     private static final CharMatcher LABEL_MATCHER = CharMatcher.ASCII;
 
+    static {
+        TraversalStrategies.GlobalCache.registerStrategies(TinkermicGraph.class,
+                TraversalStrategies.GlobalCache.getStrategies(Graph.class).clone().addStrategies(DatomicStrategies.all()));
+    }
+
     private final BaseConfiguration configuration = new BaseConfiguration();
     private final Connection connection;
     private final Graph.Features features = new TinkermicFeatures();
     private final TinkermicHelper helper = new TinkermicHelper();
+    private final boolean indexAdjacency;
+    private final int vertexStepBatchSize;
+    private final TinkermicElementCache elementCache;
+    private final TinkermicIdCache idCache;
+    private final TinkermicSchema schema = new TinkermicSchema();
+    private final Consumer<Map> txReportCallback;
+    private final boolean txReportListener;
 
     private final TinkermicTransaction transaction;
 
@@ -34,12 +61,24 @@ public class TinkermicGraph implements Graph {
         this.configuration.copy(configuration);
 
         String dbUri = configuration.getString(DATOMIC_DB_URI);
+        indexAdjacency = configuration.getBoolean(DATOMIC_INDEX_ADJACENCY, true);
+        vertexStepBatchSize = configuration.getInt(DATOMIC_VERTEX_STEP_BATCH_SIZE, DatomicVertexStep.DEFAULT_BATCH_SIZE);
+        elementCache = new TinkermicElementCache(configuration.getLong(DATOMIC_ELEMENT_CACHE_WEIGHT, TinkermicElementCache.DEFAULT_MAX_WEIGHT));
+        idCache = new TinkermicIdCache(configuration.getLong(DATOMIC_ID_CACHE_SIZE, TinkermicIdCache.DEFAULT_MAX_SIZE));
+        txReportCallback = report -> {
+            idCache.onTxReport(report);
+            schema.onTxReport(report);
+        };
 
         // it is not strictly necessary to call create-database if the database already exists, but it is safe
         // to do so—create-database is idempotent and will return false if one already exists
         Peer.createDatabase(dbUri);
         connection = Peer.connect(dbUri);
-        transaction = new TinkermicTransaction(this, connection);
+        // Group commit is opt-in, a window of 0 commits every transaction on its own
+        long groupCommitWindow = configuration.getLong(DATOMIC_GROUP_COMMIT_WINDOW, 0L);
+        transaction = new TinkermicTransaction(this, connection, idCache, schema, groupCommitWindow > 0
+                ? new TinkermicGroupCommit(connection, groupCommitWindow, configuration.getInt(DATOMIC_GROUP_COMMIT_SIZE, DEFAULT_GROUP_COMMIT_SIZE))
+                : null);
 
         // Setup the meta model for the graph
         if (requiresMetaModel(connection.db())) {
@@ -49,6 +88,15 @@ public class TinkermicGraph implements Graph {
                 throw new RuntimeException(DATOMIC_EXCEPTION_MESSAGE, e);
             }
         }
+
+        // Retractions and attributes committed through other graphs and peers keep the caches and schema current.
+        // Subscribe before loading the schema, so attributes installed in between aren't missed. The listener takes
+        // over the report queue of the connection, an application reading it itself passes the reports on instead.
+        txReportListener = configuration.getBoolean(DATOMIC_TX_REPORT_LISTENER, true);
+        if (txReportListener) {
+            TinkermicTxReportListener.subscribe(connection, txReportCallback);
+        }
+        schema.load(connection.db());
     }
 
     /**
@@ -98,6 +146,17 @@ public class TinkermicGraph implements Graph {
         return transaction;
     }
 
+    /**
+     * Traversals spawned from this graph use the {@link DatomicStrategies} registered for {@code TinkermicGraph},
+     * minus the ones switched off in the graph's configuration.
+     */
+    @Override
+    public GraphTraversalSource traversal() {
+        List<Class<? extends TraversalStrategy>> disabled = DatomicStrategies.disabled(configuration);
+        GraphTraversalSource g = new GraphTraversalSource(this);
+        return disabled.isEmpty() ? g : g.withoutStrategies(disabled.toArray(new Class[disabled.size()]));
+    }
+
     @Override
     public Graph.Variables variables() {
         throw Exceptions.variablesNotSupported();
@@ -107,13 +166,153 @@ public class TinkermicGraph implements Graph {
         return helper;
     }
 
+    /**
+     * Whether adjacent vertices are resolved by walking the VAET index rather than by a Datalog query. Enabled by
+     * default, set {@link #DATOMIC_INDEX_ADJACENCY} to {@code false} to use the query path.
+     */
+    boolean indexAdjacency() {
+        return indexAdjacency;
+    }
+
+    /**
+     * The cache of element properties read from database values of this graph. Its size is bounded by
+     * {@link #DATOMIC_ELEMENT_CACHE_WEIGHT}, the number of cached properties.
+     */
+    public TinkermicElementCache elementCache() {
+        return elementCache;
+    }
+
+    /**
+     * The cache of entity ids of the elements of this graph, keyed by UUID. Its size is bounded by
+     * {@link #DATOMIC_ID_CACHE_SIZE}.
+     */
+    public TinkermicIdCache idCache() {
+        return idCache;
+    }
+
+    /**
+     * The registry of the attributes installed in the database of this graph.
+     */
+    public TinkermicSchema schema() {
+        return schema;
+    }
+
+    /**
+     * A loader that writes vertices and edges straight into batched transactions, with the default batch size and
+     * number of batches in flight.
+     */
+    public TinkermicBulkLoader bulkLoader() {
+        return bulkLoader(TinkermicBulkLoader.DEFAULT_BATCH_SIZE, TinkermicBulkLoader.DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * A loader that writes vertices and edges straight into batched transactions.
+     *
+     * @param batchSize   The number of elements per transaction
+     * @param maxInFlight The number of transactions submitted without waiting for their result
+     */
+    public TinkermicBulkLoader bulkLoader(int batchSize, int maxInFlight) {
+        return new TinkermicBulkLoader(this, batchSize, maxInFlight);
+    }
+
+    /**
+     * An importer that streams Gryo and GraphSON adjacency lists into batched transactions.
+     */
+    public TinkermicGraphImporter importer() {
+        return importer(TinkermicBulkLoader.DEFAULT_BATCH_SIZE, TinkermicBulkLoader.DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * An importer that streams Gryo and GraphSON adjacency lists into batched transactions.
+     *
+     * @param batchSize   The number of elements per transaction
+     * @param maxInFlight The number of transactions submitted without waiting for their result
+     */
+    public TinkermicGraphImporter importer(int batchSize, int maxInFlight) {
+        return new TinkermicGraphImporter(this, batchSize, maxInFlight);
+    }
+
+    /**
+     * Fetch the internal ID of an element given its UUID. Database values of the connection are served from the
+     * id cache, speculative databases always go to the index.
+     *
+     * @param uuid The external UUID of the element
+     * @return The entity's internal ID
+     * @throws NoSuchElementException
+     */
+    public Object idFromUuid(Database db, UUID uuid) throws NoSuchElementException {
+        if (tx().isSpeculative(db)) {
+            return helper().idFromUuid(db, uuid);
+        }
+        Optional<Object> cached = idCache.get(db, uuid);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Object id = helper().idFromUuid(db, uuid);
+        idCache.put(uuid, id, db.basisT());
+        return id;
+    }
+
+    /**
+     * Fetch the internal IDs of a collection of elements given their UUIDs. The ids missing from the id cache are
+     * resolved with a single query.
+     *
+     * @param uuids The external UUIDs of the elements
+     * @return A map from UUID to internal ID, leaving out the UUIDs without an element
+     */
+    public Map<UUID, Object> idsFromUuids(Database db, Collection<UUID> uuids) {
+        if (tx().isSpeculative(db)) {
+            return helper().idsFromUuids(db, uuids);
+        }
+        Map<UUID, Object> ids = new HashMap<>();
+        Set<UUID> unknown = new LinkedHashSet<>();
+        for (UUID uuid : uuids) {
+            if (uuid == null || ids.containsKey(uuid) || unknown.contains(uuid)) continue;
+            Optional<Object> cached = idCache.get(db, uuid);
+            if (cached.isPresent()) {
+                ids.put(uuid, cached.get());
+            } else {
+                unknown.add(uuid);
+            }
+        }
+        Map<UUID, Object> found = helper().idsFromUuids(db, unknown);
+        found.forEach((uuid, id) -> idCache.put(uuid, id, db.basisT()));
+        ids.putAll(found);
+        return ids;
+    }
+
+    /**
+     * The number of traversers a {@link DatomicVertexStep} expands with a single query.
+     */
+    public int vertexStepBatchSize() {
+        return vertexStepBatchSize;
+    }
+
     /**
      * This implementation of {@code close} will also close the current transaction on the the thread, but it
      * is up to the caller to deal with dangling transactions in other threads prior to calling this method.
      */
     @Override
     public void close() throws Exception {
-        if (tx().isOpen()) tx().commit();
+        try {
+            if (tx().isOpen()) tx().commit();
+        } finally {
+            try {
+                tx().stopGroupCommit();
+            } finally {
+                if (txReportListener) {
+                    TinkermicTxReportListener.unsubscribe(connection, txReportCallback);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keep the caches and schema of the graph current with a transaction report of its connection. Only needed when
+     * the graph doesn't consume the report queue itself, see {@link #DATOMIC_TX_REPORT_LISTENER}.
+     */
+    public void onTxReport(Map report) {
+        txReportCallback.accept(report);
     }
 
     /**
@@ -145,6 +344,64 @@ public class TinkermicGraph implements Graph {
         return vertex;
     }
 
+    /**
+     * Declare a vertex property key as the unique identity of the vertices holding it, so they can be added through
+     * {@link #upsertVertex}. The typed attribute of the key is installed as a {@code :db.unique/identity} attribute,
+     * or made one, which fails while vertices share a value of it. Vertices can still be given the key in any other
+     * way, a commit giving a vertex the value another vertex holds fails.
+     *
+     * @param key        The property key
+     * @param valueClass The class of the values of the key
+     */
+    public void declareUniqueVertexProperty(String key, Class<?> valueClass) {
+        if (null == valueClass) throw Graph.Exceptions.argumentCanNotBeNull("valueClass");
+        if (!TinkermicElement.PROPERTY_KEY_MATCHER.matchesAllOf(key))
+            throw TinkermicElement.propertyKeyIllegalSymbol(key);
+        schema.installUnique(connection, TinkermicUtil.createKey(key, valueClass, Vertex.class), valueClass);
+    }
+
+    /**
+     * Add a vertex, or merge it into the vertex holding the same value of a unique property key, without reading
+     * whether that vertex exists. The vertex is resolved inside the transaction by the {@code :graph.fn/upsertVertex}
+     * transaction function, so concurrent upserts of the same value end up in one vertex. Its id is derived from the
+     * key and value, a merged vertex keeps its label and gets the properties of the upsert on top of its own. A vertex
+     * that was given the value otherwise, such as one added before the key was declared, also keeps its id: the
+     * returned vertex takes that id once committed.
+     *
+     * @param label     The vertex label
+     * @param key       A property key declared with {@link #declareUniqueVertexProperty}
+     * @param value     The value identifying the vertex
+     * @param keyValues The other vertex properties, as alternating keys and values
+     * @return The vertex
+     */
+    public Vertex upsertVertex(String label, String key, Object value, Object... keyValues) {
+        ElementHelper.validateLabel(label);
+        if (!LABEL_MATCHER.matchesAllOf(label)) throw labelIllegalSymbol(label);
+        ElementHelper.validateProperty(key, value);
+        ElementHelper.legalPropertyKeyValueArray(keyValues);
+        if (ElementHelper.getIdValue(keyValues).isPresent())
+            throw Vertex.Exceptions.userSuppliedIdsNotSupported();
+        String attribute = TinkermicUtil.createKey(key, value.getClass(), Vertex.class);
+        if (!schema.isUnique(attribute))
+            throw new IllegalArgumentException("The property key " + key + " of " + value.getClass().getSimpleName()
+                    + " values is not declared unique");
+
+        tx().readWrite();
+
+        // the id follows from the value, so upserts of the same value in one transaction share the pending vertex
+        UUID uuid = UUID.nameUUIDFromBytes((attribute + '=' + value).getBytes(StandardCharsets.UTF_8));
+        TinkermicVertex vertex = (TinkermicVertex) tx().added(uuid);
+        if (vertex == null) {
+            TinkermicHelper.Addition addition = helper().vertexAddition(uuid, label);
+            vertex = new TinkermicVertex(this, Optional.empty(), uuid, addition.tempId, label);
+            tx().upsert(vertex, addition.statements.get(0));
+        }
+
+        vertex.property(key, value);
+        ElementHelper.attachProperties(vertex, keyValues);
+        return vertex;
+    }
+
     protected Edge addEdge(TinkermicVertex outVertex, TinkermicVertex inVertex, String label, Object... keyValues) {
         if (null == inVertex) throw Graph.Exceptions.argumentCanNotBeNull("inVertex");
         ElementHelper.validateLabel(label);
@@ -180,17 +437,8 @@ public class TinkermicGraph implements Graph {
             tx().readWrite();
 
             Database db = database();
-            return Stream.of(vertexIds)
-                    .map(TinkermicUtil::externalIdToUuid)
-                    .flatMap(uuid -> {
-                        try {
-                            List<Object> v = helper().getVertex(db, uuid);
-                            return Stream.of(new TinkermicVertex(this, Optional.of(db), (UUID) v.get(1), v.get(0), (String) v.get(2)));
-                        } catch (NoSuchElementException e) {
-                            return Stream.empty();
-                        }
-                    })
-                    .map(vertex -> (Vertex) vertex).iterator();
+            return elementTriples(db, vertexIds, Vertex.class)
+                    .map(v -> (Vertex) new TinkermicVertex(this, Optional.of(db), (UUID) v.get(1), v.get(0), (String) v.get(2))).iterator();
         }
     }
 
@@ -208,18 +456,23 @@ public class TinkermicGraph implements Graph {
 
             tx().readWrite();
             Database db = database();
-            return Stream.of(edgeIds)
-                    .map(TinkermicUtil::externalIdToUuid)
-                    .flatMap(uuid -> {
-                        try {
-                            List<Object> e = helper().getEdge(db, uuid);
-                            return Stream.of(new TinkermicEdge(this, Optional.of(db), (UUID) e.get(1), e.get(0), (String) e.get(2)));
-                        } catch (NoSuchElementException e) {
-                            return Stream.empty();
-                        }
-                    })
-                    .map(edge -> (Edge) edge).iterator();
+            return elementTriples(db, edgeIds, Edge.class)
+                    .map(e -> (Edge) new TinkermicEdge(this, Optional.of(db), (UUID) e.get(1), e.get(0), (String) e.get(2))).iterator();
+        }
+    }
+
+    // ID/UUID/label triples of the elements with the given external ids, in the order of the ids. Ids without an
+    // element of the requested class are dropped.
+    private Stream<List<Object>> elementTriples(Database db, Object[] elementIds, Class<? extends Element> elementClass) {
+        List<UUID> uuids = new ArrayList<>(elementIds.length);
+        for (Object elementId : elementIds) {
+            uuids.add(TinkermicUtil.externalIdToUuid(elementId));
         }
+        Map<UUID, Object> ids = idsFromUuids(db, uuids);
+        return uuids.stream()
+                .filter(ids::containsKey)
+                .map(uuid -> helper().getElement(db, ids.get(uuid), elementClass))
+                .filter(triple -> triple.get(2) != null);
     }
 
     public final Database database() {
@@ -248,13 +501,37 @@ public class TinkermicGraph implements Graph {
         if (tx().newInThisTx(vertex)) {
             tx().remove(vertex);
         } else {
-            // Retrieve all edges associated with this vertex and remove them one by one
-            Iterator<Edge> edgesIt = vertex.edges(Direction.BOTH);
-            while (edgesIt.hasNext()) {
-                Edge edge = edgesIt.next();
-                removeEdge(edge);
-            }
-            tx().del(vertex, Util.list(":db.fn/retractEntity", vertex.graphId));
+            // the edges are found and retracted on the transactor, edges added in this transaction are dropped
+            tx().delVertex(vertex);
+        }
+    }
+
+    /**
+     * Remove a vertex of a very high degree without retracting all of its edges in a single transaction. The edges
+     * are retracted on the transactor in transactions of at most {@code chunkSize} edges, followed by one retracting
+     * the vertex. This happens right away and outside of the current transaction, and isn't atomic: a failure can
+     * leave the vertex with part of its edges.
+     *
+     * @param v         A committed vertex
+     * @param chunkSize The maximum number of edges retracted per transaction
+     */
+    public void removeVertex(Vertex v, int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be positive");
+        TinkermicVertex vertex = (TinkermicVertex) v;
+        if (tx().isOpen() && tx().newInThisTx(vertex))
+            throw new IllegalArgumentException("Vertex is not committed: " + vertex);
+
+        try {
+            Map result;
+            do {
+                result = connection.transact(Util.list(
+                        Util.list(":graph.fn/retractEdges", vertex.graphId, chunkSize))).get();
+                // close off the retracted ids before this thread reads again, as a commit does
+                idCache.onTxReport(result);
+            } while (((Collection) result.get(Connection.TX_DATA)).size() > 1); // only the transaction instant
+            idCache.onTxReport(connection.transact(Util.list(Util.list(":db.fn/retractEntity", vertex.graphId))).get());
+        } catch (Exception e) {
+            throw new RuntimeException(DATOMIC_EXCEPTION_MESSAGE, e);
         }
     }
 
@@ -0,0 +1,102 @@
+package com.tinkermic.gremlin.structure;
+
+import com.google.common.collect.Lists;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.io.GraphReader;
+import org.apache.tinkerpop.gremlin.structure.io.graphson.GraphSONReader;
+import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Imports graphs written by {@code writeGraph} of a Gryo or GraphSON writer, which hold one vertex per record with
+ * its edges. Records are read one at a time and written straight into the batched transactions of a
+ * {@link TinkermicBulkLoader}, instead of going through {@link TinkermicGraph#addVertex} and a single
+ * {@link TinkermicTransaction} holding the whole graph.
+ * <p>
+ * Only the outgoing edges of every vertex are loaded, so each edge is loaded once. An edge to a vertex later in the
+ * input is held back until that vertex is read. Memory use is bounded by the batches in flight, the entity ids of the
+ * loaded vertices, kept in primitive arrays for integral source ids, and the edges to vertices not read yet. The ids of the source data aren't kept, vertices and edges get new ids.
+ */
+public final class TinkermicGraphImporter {
+    private final TinkermicGraph graph;
+    private final int batchSize;
+    private final int maxInFlight;
+
+    private long vertexCount;
+    private long edgeCount;
+
+    TinkermicGraphImporter(TinkermicGraph graph, int batchSize, int maxInFlight) {
+        this.graph = graph;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Import a graph in the Gryo format.
+     */
+    public TinkermicGraphImporter readGryo(InputStream inputStream) throws IOException {
+        return readGraph(GryoReader.build().create(), inputStream);
+    }
+
+    /**
+     * Import a graph in the GraphSON format.
+     */
+    public TinkermicGraphImporter readGraphSON(InputStream inputStream) throws IOException {
+        return readGraph(GraphSONReader.build().create(), inputStream);
+    }
+
+    /**
+     * Import a graph with a reader that reads one vertex with its edges at a time.
+     */
+    public TinkermicGraphImporter readGraph(GraphReader reader, InputStream inputStream) throws IOException {
+        try (TinkermicBulkLoader loader = graph.bulkLoader(batchSize, maxInFlight).allowForwardReferences()) {
+            Iterator<Vertex> vertices = reader.readVertices(inputStream,
+                    attachable -> {
+                        Vertex vertex = attachable.get();
+                        loader.addVertex(vertex.id(), vertex.label(), keyValues(vertex));
+                        return vertex;
+                    },
+                    attachable -> {
+                        Edge edge = attachable.get();
+                        loader.addEdge(edge.outVertex().id(), edge.inVertex().id(), edge.label(), keyValues(edge));
+                        return edge;
+                    },
+                    Direction.OUT);
+            while (vertices.hasNext()) {
+                vertices.next();
+            }
+            loader.flush();
+            vertexCount += loader.vertexCount();
+            edgeCount += loader.edgeCount();
+        }
+        return this;
+    }
+
+    public long vertexCount() {
+        return vertexCount;
+    }
+
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    // Meta properties aren't supported and multi properties keep their last value
+    private static Object[] keyValues(Element element) {
+        List<Object> keyValues = Lists.newArrayList();
+        Iterator<? extends Property<Object>> properties = element.properties();
+        while (properties.hasNext()) {
+            Property<Object> property = properties.next();
+            keyValues.add(property.key());
+            keyValues.add(property.value());
+        }
+        return keyValues.toArray();
+    }
+}
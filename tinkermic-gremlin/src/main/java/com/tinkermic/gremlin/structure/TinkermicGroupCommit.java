@@ -0,0 +1,185 @@
+package com.tinkermic.gremlin.structure;
+
+import com.google.common.collect.Lists;
+import datomic.Connection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the commits of concurrent transactions into a single Datomic transaction. Commits are queued and picked
+ * up by a daemon thread, which waits for at most the configured window after the first one, or until the queued
+ * statements reach the configured size, and transacts all of them at once. While a group is being transacted the
+ * next one builds up in the queue.
+ * <p>
+ * Temp ids are unique across transactions of a peer, so the statements of all contributors can be transacted
+ * together and each contributor resolves its own temp ids from the shared result. When the group fails, for example
+ * because a compare-and-swap of one contributor doesn't hold, every contributor is transacted on its own, so only the
+ * offending one fails.
+ * <p>
+ * Identical statements are one statement in a Datomic transaction, so two commits making the same compare-and-swap
+ * or increment would collapse into one. Commits that call a transaction function are therefore transacted on their
+ * own, in the order they were queued.
+ */
+final class TinkermicGroupCommit {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TinkermicGroupCommit.class);
+    private static final long POLL_MILLIS = 100L;
+
+    private static final class Contribution {
+        private final List<Object> statements;
+        private final CompletableFuture<Map> result = new CompletableFuture<>();
+        private final boolean alone;
+
+        Contribution(List<Object> statements) {
+            this.statements = statements;
+            this.alone = callsFunction(statements);
+        }
+
+        // Whether any of the statements calls a transaction function, such as :db.fn/cas or :graph.fn/increment
+        private static boolean callsFunction(List<Object> statements) {
+            for (Object statement : statements) {
+                if (statement instanceof List && !((List) statement).isEmpty()) {
+                    String function = ((List) statement).get(0).toString();
+                    if (function.startsWith(":db.fn/") || function.startsWith(":graph.fn/")) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Connection connection;
+    private final long windowNanos;
+    private final int maxStatements;
+    private final BlockingQueue<Contribution> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    // guards running together with queueing, so no commit is queued once the thread may have seen it cleared
+    private final Object lock = new Object();
+    private volatile boolean running = true;
+
+    /**
+     * @param windowMillis  The time to wait for other commits after the first commit of a group
+     * @param maxStatements The number of statements after which a group is transacted without waiting any longer
+     */
+    TinkermicGroupCommit(Connection connection, long windowMillis, int maxStatements) {
+        this.connection = connection;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxStatements = maxStatements;
+        this.thread = new Thread(this::run, "tinkermic-group-commit");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queue the statements of a transaction.
+     *
+     * @return A future of the result of the Datomic transaction the statements ended up in
+     */
+    CompletableFuture<Map> submit(List<Object> statements) {
+        Contribution contribution = new Contribution(statements);
+        synchronized (lock) {
+            if (running) {
+                queue.add(contribution);
+                return contribution.result;
+            }
+        }
+        contribution.result.completeExceptionally(new IllegalStateException("Group commit is closed"));
+        return contribution.result;
+    }
+
+    /**
+     * Transact the queued commits and stop the commit thread.
+     */
+    void close() throws InterruptedException {
+        synchronized (lock) {
+            running = false;
+        }
+        thread.join();
+        abandon(new IllegalStateException("Group commit is closed"));
+    }
+
+    // Stop accepting commits and fail the ones still queued, which the commit thread won't pick up any more
+    private void abandon(Exception cause) {
+        synchronized (lock) {
+            running = false;
+        }
+        for (Contribution contribution; (contribution = queue.poll()) != null; ) {
+            contribution.result.completeExceptionally(cause);
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            Contribution first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                abandon(e);
+                return;
+            }
+            if (first == null) continue;
+
+            List<Contribution> group = Lists.newArrayList(first);
+            Contribution alone = null;
+            boolean interrupted = false;
+            int size = first.statements.size();
+            long deadline = System.nanoTime() + windowNanos;
+            while (!first.alone && size < maxStatements) {
+                long remaining = deadline - System.nanoTime();
+                Contribution next;
+                try {
+                    next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                } catch (InterruptedException e) {
+                    // the group gathered so far is still transacted
+                    interrupted = true;
+                    break;
+                }
+                if (next == null) break;
+                if (next.alone) {
+                    // closes the group, and is transacted right after it
+                    alone = next;
+                    break;
+                }
+                group.add(next);
+                size += next.statements.size();
+            }
+            transact(group, size);
+            if (alone != null) {
+                transact(Collections.singletonList(alone), alone.statements.size());
+            }
+            if (interrupted) {
+                abandon(new InterruptedException("Group commit thread was interrupted"));
+                return;
+            }
+        }
+    }
+
+    private void transact(List<Contribution> group, int size) {
+        if (group.size() > 1) {
+            List<Object> statements = Lists.newArrayListWithCapacity(size);
+            group.forEach(contribution -> statements.addAll(contribution.statements));
+            try {
+                Map result = connection.transact(statements).get();
+                group.forEach(contribution -> contribution.result.complete(result));
+                return;
+            } catch (Exception e) {
+                LOGGER.debug("Group of {} commits failed, transacting them one by one", group.size(), e);
+            }
+        }
+        for (Contribution contribution : group) {
+            try {
+                contribution.result.complete(connection.transact(contribution.statements).get());
+            } catch (Exception e) {
+                contribution.result.completeExceptionally(e);
+            }
+        }
+    }
+}
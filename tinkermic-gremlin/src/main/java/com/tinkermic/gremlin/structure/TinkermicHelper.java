@@ -2,17 +2,26 @@ package com.tinkermic.gremlin.structure;
 
 import clojure.lang.Keyword;
 import com.google.common.base.Charsets;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.io.Resources;
 import datomic.*;
 import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Element;
 import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.apache.tinkerpop.gremlin.structure.Direction.IN;
 import static org.apache.tinkerpop.gremlin.structure.Direction.OUT;
@@ -26,6 +35,16 @@ public final class TinkermicHelper {
     public static final Keyword IN_VERTEX = Keyword.intern("graph.edge/inVertex");
     public static final Keyword OUT_VERTEX = Keyword.intern("graph.edge/outVertex");
 
+    // Transaction function retracting the values an entity holds for a list of attributes
+    public static final Keyword RETRACT_ATTRIBUTES = Keyword.intern("graph.fn/retractAttributes");
+
+    // Transaction function asserting a vertex holding values of unique identity attributes, refused or merged into
+    // the stored vertex holding one of them
+    public static final Keyword UPSERT_VERTEX = Keyword.intern("graph.fn/upsertVertex");
+
+    // Transaction function adding to the values an entity holds for long attributes
+    public static final Keyword INCREMENT = Keyword.intern("graph.fn/increment");
+
     public static class Addition {
         public final Object tempId;
         public final List statements;
@@ -90,16 +109,23 @@ public final class TinkermicHelper {
     }
 
     /**
-     * Obtain an iterable of vertex data, comprising a pair of the internal
-     * graph ID and the element's UUID.
+     * Obtain an iterable of vertex data, comprising the internal graph ID, the element's UUID and its label. The
+     * vertices are streamed lazily from the AEVT index of the vertex label, so nothing is materialized up front.
      *
-     * @return An iterable of ID-UUID pairs
+     * @return An iterable of ID/UUID/label triples
      */
     public Iterable<List<Object>> listVertices(Database db) {
-        return Peer.q("[:find ?v ?uuid ?label :in $ :where " +
-                "[?v :graph.element/id ?uuid] " +
-                "[?v :graph.vertex/label ?label]]",
-                db);
+        return labelTriples(db, db.datoms(Database.AEVT, VERTEX_LABEL));
+    }
+
+    /**
+     * Obtain an iterable of the vertices with a label, streamed lazily from the AVET index of the vertex label.
+     *
+     * @param label The vertex label
+     * @return An iterable of ID/UUID/label triples
+     */
+    public Iterable<List<Object>> listVertices(Database db, String label) {
+        return labelTriples(db, db.datoms(Database.AVET, VERTEX_LABEL, label));
     }
 
     public List<Object> getVertex(Database db, UUID id) {
@@ -116,11 +142,28 @@ public final class TinkermicHelper {
                 db, id).iterator().next();
     }
 
+    /**
+     * Obtain an iterable of edge data, streamed lazily from the AEVT index of the edge label.
+     *
+     * @return An iterable of ID/UUID/label triples
+     */
     public Iterable<List<Object>> listEdges(Database db) {
-        return Peer.q("[:find ?v ?uuid ?label :in $ :where " +
-                "[?v :graph.element/id ?uuid] " +
-                "[?v :graph.edge/label ?label]]",
-                db);
+        return labelTriples(db, db.datoms(Database.AEVT, EDGE_LABEL));
+    }
+
+    /**
+     * Obtain an iterable of the edges with a label, streamed lazily from the AVET index of the edge label.
+     *
+     * @param label The edge label
+     * @return An iterable of ID/UUID/label triples
+     */
+    public Iterable<List<Object>> listEdges(Database db, String label) {
+        return labelTriples(db, db.datoms(Database.AVET, EDGE_LABEL, label));
+    }
+
+    // Join label datoms to the element UUID, one element at a time
+    private static Iterable<List<Object>> labelTriples(Database db, Iterable<Datom> labels) {
+        return Iterables.transform(labels, datom -> list(datom.e(), datomValue(db, datom.e(), ELEMENT_ID), datom.v()));
     }
 
     /**
@@ -139,6 +182,25 @@ public final class TinkermicHelper {
         }
     }
 
+    /**
+     * Fetch the internal IDs of a collection of elements given their UUIDs, in a single collection-bound query.
+     *
+     * @param uuids The external UUIDs of the elements
+     * @return A map from UUID to internal ID, leaving out the UUIDs without an element
+     */
+    public Map<UUID, Object> idsFromUuids(Database db, Collection<UUID> uuids) {
+        List<UUID> lookup = uuids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Map<UUID, Object> ids = Maps.newHashMapWithExpectedSize(lookup.size());
+        if (lookup.isEmpty()) return ids;
+        Collection<List<Object>> found = Peer.q("[:find ?uuid ?e :in $ [?uuid ...] :where " +
+                "[?e :graph.element/id ?uuid]]",
+                db, lookup);
+        for (List<Object> row : found) {
+            ids.put((UUID) row.get(0), row.get(1));
+        }
+        return ids;
+    }
+
     public UUID uuidFromId(Database db, Object id) throws NoSuchElementException {
         Iterator<Datom> iterator = db.datoms(Database.EAVT, id, ELEMENT_ID).iterator();
         if (iterator.hasNext()) {
@@ -300,6 +362,285 @@ public final class TinkermicHelper {
                 db, vertexId, dir1, dir2, labels).iterator();
     }
 
+    /**
+     * Get all vertices connected with a vertex by walking the VAET index of the edges' vertex references, instead
+     * of running a Datalog query. Edge labels are filtered as the datoms are streamed.
+     *
+     * @param vertexId  The vertex ID
+     * @param direction The direction
+     * @param labels    The label(s) to follow
+     * @return An iterator of ID/UUID/label triples
+     */
+    public Iterator<List<Object>> getVerticesFromIndex(Database db, Object vertexId, Direction direction, String... labels) {
+        switch (direction) {
+            case OUT:
+            case IN:
+                Keyword other = directionKeyword(direction.opposite());
+                return adjacentEdgeIds(db, vertexId, directionKeyword(direction), labels)
+                        .map(e -> vertexTriple(db, datomValue(db, e, other)))
+                        .iterator();
+            default:
+                return IteratorUtils.concat(
+                        getVerticesFromIndex(db, vertexId, OUT, labels),
+                        getVerticesFromIndex(db, vertexId, IN, labels));
+        }
+    }
+
+    // Lazily stream the ids of the edges referencing a vertex through the given direction attribute
+    private Stream<Object> adjacentEdgeIds(Database db, Object vertexId, Keyword direction, String... labels) {
+        List<String> labelList = Arrays.asList(labels);
+        return StreamSupport.stream(db.datoms(Database.VAET, vertexId, direction).spliterator(), false)
+                .map(Datom::e)
+                .filter(e -> labelList.isEmpty() || labelList.contains(datomValue(db, e, EDGE_LABEL)));
+    }
+
+    // Read a cardinality one attribute straight from the EAVT index
+    private static Object datomValue(Database db, Object entityId, Keyword attribute) {
+        Iterator<Datom> iterator = db.datoms(Database.EAVT, entityId, attribute).iterator();
+        return iterator.hasNext() ? iterator.next().v() : null;
+    }
+
+    // ID/UUID/label triple of a vertex, in the same shape as getVertex
+    private static List<Object> vertexTriple(Database db, Object vertexId) {
+        return elementTriple(db, vertexId, VERTEX_LABEL);
+    }
+
+    // ID/UUID/label triple of an element, reading the label from the given label attribute
+    private static List<Object> elementTriple(Database db, Object elementId, Keyword labelAttribute) {
+        return list(elementId, datomValue(db, elementId, ELEMENT_ID), datomValue(db, elementId, labelAttribute));
+    }
+
+    /**
+     * Lazily find the elements holding a property value through the AVET index of its attribute.
+     *
+     * @param attribute    The typed property attribute, as created by {@link TinkermicUtil#createKey}
+     * @param value        The property value
+     * @param elementClass The class of the element, either Vertex or Edge
+     * @return An iterator of ID/UUID/label triples
+     */
+    public Iterator<List<Object>> getElementsByProperty(Database db, String attribute, Object value,
+            Class<? extends Element> elementClass) {
+        Keyword labelAttribute = Vertex.class.isAssignableFrom(elementClass) ? VERTEX_LABEL : EDGE_LABEL;
+        return StreamSupport.stream(db.datoms(Database.AVET, TinkermicPropertyKeys.keyword(attribute), TinkermicUtil.toIndexValue(value)).spliterator(), false)
+                .map(datom -> elementTriple(db, datom.e(), labelAttribute))
+                .iterator();
+    }
+
+    /**
+     * Get the ID/UUID/label triple of an element given its internal graph ID.
+     *
+     * @param id           The graph internal ID
+     * @param elementClass The class of the element, either Vertex or Edge
+     * @return The ID/UUID/label triple
+     */
+    public List<Object> getElement(Database db, Object id, Class<? extends Element> elementClass) {
+        return elementTriple(db, id, Vertex.class.isAssignableFrom(elementClass) ? VERTEX_LABEL : EDGE_LABEL);
+    }
+
+    /**
+     * Lazily walk the values of a property attribute in ascending order, straight from its AVET index.
+     *
+     * @param attribute The typed property attribute, as created by {@link TinkermicUtil#createKey}
+     * @return An iterator of ID/value pairs, ordered by value
+     */
+    public Iterator<List<Object>> getPropertyValues(Database db, String attribute) {
+        return Iterators.transform(db.datoms(Database.AVET, TinkermicPropertyKeys.keyword(attribute)).iterator(), datom -> list(datom.e(), datom.v()));
+    }
+
+    /**
+     * Find the elements holding any of a collection of property values, in a single collection-bound query.
+     *
+     * @param attribute    The typed property attribute, as created by {@link TinkermicUtil#createKey}
+     * @param values       The property values
+     * @param elementClass The class of the element, either Vertex or Edge
+     * @return An iterator of ID/UUID/label triples
+     */
+    public Iterator<List<Object>> getElementsByProperty(Database db, String attribute, Collection<?> values,
+            Class<? extends Element> elementClass) {
+        Keyword labelAttribute = Vertex.class.isAssignableFrom(elementClass) ? VERTEX_LABEL : EDGE_LABEL;
+        List<Object> indexValues = values.stream().map(TinkermicUtil::toIndexValue).collect(Collectors.toList());
+        Collection<List<Object>> elements = Peer.q("[:find ?e ?uuid ?label :in $ ?attribute ?labelAttribute [?value ...] :where " +
+                "[?e ?attribute ?value] " +
+                "[?e :graph.element/id ?uuid] " +
+                "[?e ?labelAttribute ?label]]",
+                db, attribute, labelAttribute, indexValues);
+        return elements.iterator();
+    }
+
+    /**
+     * Lazily find the elements holding a property value within a range, walking the AVET index of its attribute from
+     * the lower bound onwards and stopping at the upper bound.
+     *
+     * @param attribute      The typed property attribute, as created by {@link TinkermicUtil#createKey}
+     * @param lower          The lower bound, or null if the range is open at the start
+     * @param lowerInclusive Whether values equal to the lower bound are part of the range
+     * @param upper          The upper bound, or null if the range is open at the end
+     * @param upperInclusive Whether values equal to the upper bound are part of the range
+     * @param elementClass   The class of the element, either Vertex or Edge
+     * @return An iterator of ID/UUID/label triples, in index order of the property values
+     */
+    public Iterator<List<Object>> getElementsByPropertyRange(Database db, String attribute,
+            Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive,
+            Class<? extends Element> elementClass) {
+        Keyword labelAttribute = Vertex.class.isAssignableFrom(elementClass) ? VERTEX_LABEL : EDGE_LABEL;
+        return Iterators.transform(propertyRange(db, attribute, lower, lowerInclusive, upper, upperInclusive),
+                datom -> elementTriple(db, datom.e(), labelAttribute));
+    }
+
+    // Walk the AVET datoms of an attribute from the lower bound onwards, stopping at the upper bound
+    private static Iterator<Datom> propertyRange(Database db, String attribute,
+            Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+        Comparable lowerValue = (Comparable) TinkermicUtil.toIndexValue(lower);
+        Comparable upperValue = (Comparable) TinkermicUtil.toIndexValue(upper);
+        Iterator<Datom> datoms = db.indexRange(TinkermicPropertyKeys.keyword(attribute), lowerValue, null).iterator();
+        return new AbstractIterator<Datom>() {
+            @Override
+            protected Datom computeNext() {
+                while (datoms.hasNext()) {
+                    Datom datom = datoms.next();
+                    if (lowerValue != null && !lowerInclusive && lowerValue.compareTo(datom.v()) == 0)
+                        continue;
+                    if (upperValue != null) {
+                        int comparison = upperValue.compareTo(datom.v());
+                        if (comparison < 0 || (comparison == 0 && !upperInclusive))
+                            return endOfData();
+                    }
+                    return datom;
+                }
+                return endOfData();
+            }
+        };
+    }
+
+    /**
+     * Count the elements holding a property value, straight from the AVET index of its attribute.
+     *
+     * @param attribute The typed property attribute, as created by {@link TinkermicUtil#createKey}
+     * @param value     The property value
+     * @return The number of elements
+     */
+    public long countElementsByProperty(Database db, String attribute, Object value) {
+        return Iterables.size(db.datoms(Database.AVET, TinkermicPropertyKeys.keyword(attribute), TinkermicUtil.toIndexValue(value)));
+    }
+
+    /**
+     * Count the elements holding any of a collection of property values, with a count aggregate.
+     *
+     * @param attribute The typed property attribute, as created by {@link TinkermicUtil#createKey}
+     * @param values    The property values
+     * @return The number of elements
+     */
+    public long countElementsByProperty(Database db, String attribute, Collection<?> values) {
+        List<Object> indexValues = values.stream().map(TinkermicUtil::toIndexValue).collect(Collectors.toList());
+        Collection<List<Object>> count = Peer.q("[:find (count ?e) :in $ ?attribute [?value ...] :where " +
+                "[?e ?attribute ?value]]",
+                db, attribute, indexValues);
+        return count.isEmpty() ? 0L : ((Number) count.iterator().next().get(0)).longValue();
+    }
+
+    /**
+     * Count the elements holding a property value within a range, walking the AVET index of its attribute.
+     *
+     * @see #getElementsByPropertyRange
+     */
+    public long countElementsByPropertyRange(Database db, String attribute,
+            Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+        return Iterators.size(propertyRange(db, attribute, lower, lowerInclusive, upper, upperInclusive));
+    }
+
+    /**
+     * Count the vertices, optionally restricted to a label, from the datoms of the vertex label attribute.
+     *
+     * @param label The vertex label, or null to count all vertices
+     * @return The number of vertices
+     */
+    public long countVertices(Database db, String label) {
+        return Iterables.size(label == null ? db.datoms(Database.AEVT, VERTEX_LABEL) : db.datoms(Database.AVET, VERTEX_LABEL, label));
+    }
+
+    /**
+     * Count the edges, optionally restricted to a label, from the datoms of the edge label attribute.
+     *
+     * @param label The edge label, or null to count all edges
+     * @return The number of edges
+     */
+    public long countEdges(Database db, String label) {
+        return Iterables.size(label == null ? db.datoms(Database.AEVT, EDGE_LABEL) : db.datoms(Database.AVET, EDGE_LABEL, label));
+    }
+
+    /**
+     * Get the vertices connected with a batch of vertices, in a single collection-bound query per direction.
+     *
+     * @param vertexIds The vertex IDs
+     * @param direction The direction
+     * @param labels    The label(s) to follow
+     * @return ID/UUID/label triples of the adjacent vertices, keyed by the ID of the vertex they were reached from
+     */
+    public Map<Object, List<List<Object>>> getVertices(Database db, Collection<Object> vertexIds, Direction direction,
+            String... labels) {
+        switch (direction) {
+            case OUT:
+            case IN:
+                Map<Object, List<List<Object>>> adjacent = Maps.newHashMap();
+                String query = "[:find ?v ?e ?other ?uuid ?label" +
+                        " :in $ [?v ...] ?dir1 ?dir2 " + (labels.length > 0 ? "[?edgeLabel ...] " : "") +
+                        " :where [?e ?dir1 ?v] " +
+                        " [?e ?dir2 ?other]" +
+                        (labels.length > 0 ? " [?e :graph.edge/label ?edgeLabel]" : "") +
+                        " [?other :graph.element/id ?uuid]" +
+                        " [?other :graph.vertex/label ?label] ]";
+                for (List<Object> row : batchQuery(query, db, vertexIds, directionKeyword(direction),
+                        directionKeyword(direction.opposite()), labels)) {
+                    adjacent.computeIfAbsent(row.get(0), v -> Lists.newArrayList()).add(list(row.get(2), row.get(3), row.get(4)));
+                }
+                return adjacent;
+            default:
+                return merge(getVertices(db, vertexIds, OUT, labels), getVertices(db, vertexIds, IN, labels));
+        }
+    }
+
+    /**
+     * Get the edges of a batch of vertices, in a single collection-bound query per direction.
+     *
+     * @param vertexIds The vertex IDs
+     * @param direction The direction
+     * @param labels    The label(s)
+     * @return ID/UUID/label triples of the edges, keyed by the ID of the vertex they were reached from
+     */
+    public Map<Object, List<List<Object>>> getEdges(Database db, Collection<Object> vertexIds, Direction direction,
+            String... labels) {
+        switch (direction) {
+            case OUT:
+            case IN:
+                Map<Object, List<List<Object>>> edges = Maps.newHashMap();
+                String query = "[:find ?v ?e ?uuid ?label" +
+                        " :in $ [?v ...] ?dir " + (labels.length > 0 ? "[?label ...] " : "") +
+                        " :where [?e ?dir ?v] " +
+                        " [?e :graph.edge/label ?label]" +
+                        " [?e :graph.element/id ?uuid] ]";
+                for (List<Object> row : batchQuery(query, db, vertexIds, directionKeyword(direction), null, labels)) {
+                    edges.computeIfAbsent(row.get(0), v -> Lists.newArrayList()).add(list(row.get(1), row.get(2), row.get(3)));
+                }
+                return edges;
+            default:
+                return merge(getEdges(db, vertexIds, OUT, labels), getEdges(db, vertexIds, IN, labels));
+        }
+    }
+
+    private static Collection<List<Object>> batchQuery(String query, Database db, Collection<Object> ids,
+            Keyword dir1, Keyword dir2, String... labels) {
+        List<Object> inputs = Lists.newArrayList(db, ids, dir1);
+        if (dir2 != null) inputs.add(dir2);
+        if (labels.length > 0) inputs.add(Arrays.asList(labels));
+        return Peer.q(query, inputs.toArray());
+    }
+
+    private static Map<Object, List<List<Object>>> merge(Map<Object, List<List<Object>>> first,
+            Map<Object, List<List<Object>>> second) {
+        second.forEach((id, rows) -> first.computeIfAbsent(id, v -> Lists.newArrayList()).addAll(rows));
+        return first;
+    }
+
     /**
      * Get all in vertices connected with a vertex.
      *
@@ -444,7 +785,8 @@ public final class TinkermicHelper {
     }
 
     /**
-     * Remove a property from an id, returning the uncommitted statements.
+     * Remove a property from an id, returning the uncommitted statements. The value is retracted by a transaction
+     * function, without being read.
      *
      * @param id           The graph internal ID
      * @param elementClass The class of the element, either Vertex or Edge
@@ -453,17 +795,13 @@ public final class TinkermicHelper {
      * @return A set of database-altering statements, ready to be committed
      */
     public List removeProperty(Database db, Object id, Class elementClass, String key, Class valueClass) {
-        Object currentValue = getProperty(db, id, elementClass, key, valueClass);
-        if (currentValue != null) {
-            return Util.list(Util.list(":db/retract", id,
-                    TinkermicUtil.createKey(key, valueClass, elementClass), currentValue));
-        } else {
-            return Util.list();
-        }
+        return Util.list(Util.list(RETRACT_ATTRIBUTES, id,
+                Util.list(TinkermicPropertyKeys.keyword(TinkermicUtil.createKey(key, valueClass, elementClass)))));
     }
 
     /**
-     * Remove a property from an id, returning the uncommitted statements.
+     * Remove a property from an id, returning the uncommitted statements. The value is retracted by a transaction
+     * function, without being read.
      *
      * @param id           The graph internal ID
      * @param elementClass The class of the element, either Vertex or Edge
@@ -472,13 +810,8 @@ public final class TinkermicHelper {
      * @return A set of database-altering statements, ready to be committed
      */
     public List removePropertyByUuid(Database db, UUID id, Class elementClass, String key, Class valueClass) {
-        Object currentValue = getPropertyByUuid(db, id, elementClass, key, valueClass);
-        if (currentValue != null) {
-            return Util.list(Util.list(":db/retract", Keyword.intern(id.toString()),
-                    TinkermicUtil.createKey(key, valueClass, elementClass), currentValue));
-        } else {
-            return Util.list();
-        }
+        return Util.list(Util.list(RETRACT_ATTRIBUTES, Util.list(ELEMENT_ID, id),
+                Util.list(TinkermicPropertyKeys.keyword(TinkermicUtil.createKey(key, valueClass, elementClass)))));
     }
 
     public Set<String> getPropertyKeys(Database db, Object id) {
@@ -512,6 +845,23 @@ public final class TinkermicHelper {
         )));
     }
 
+    /**
+     * The transaction data asserting a new vertex. When the vertex holds values of unique identity attributes, its
+     * statement is passed to the {@code :graph.fn/upsertVertex} transaction function: a stored vertex holding one of
+     * the values refuses it, unless it is adopted, in which case the statement is merged into that vertex.
+     *
+     * @param statement The statement map of the vertex
+     * @param unique    The values of unique identity attributes the vertex holds, keyed by attribute
+     * @param adopt     Whether the vertex is merged into the stored vertex holding one of the values
+     */
+    public static Object vertexStatement(Object statement, Map<String, Object> unique, boolean adopt) {
+        if (unique.isEmpty()) return statement;
+        List<Object> lookups = unique.entrySet().stream()
+                .map(entry -> Util.list(TinkermicPropertyKeys.keyword(entry.getKey()), entry.getValue()))
+                .collect(Collectors.toList());
+        return Util.list(UPSERT_VERTEX, statement, lookups, adopt);
+    }
+
     public Addition edgeAddition(UUID uuid, String label, Object outVertex, Object inVertex) {
         Object tempid = Peer.tempid(":db.part/user");
         return new Addition(tempid, Util.list(Util.map(
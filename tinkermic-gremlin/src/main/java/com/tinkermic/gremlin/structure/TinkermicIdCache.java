@@ -0,0 +1,114 @@
+package com.tinkermic.gremlin.structure;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import datomic.Connection;
+import datomic.Database;
+import datomic.Datom;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of the Datomic entity ids of graph elements, keyed by their external UUID. An entity id never changes for
+ * the lifetime of an element, so an entry records the basis-t from which the mapping is known to hold and, once the
+ * element is retracted, the basis-t from which it no longer does. Lookups only use an entry for a database value
+ * whose basis-t falls in between, which keeps reads of older and newer database values correct while entries are
+ * filled in and retracted concurrently.
+ * <p>
+ * Entries are added when a transaction commits and when an element is read by UUID, and closed off by the
+ * retractions of {@code :graph.element/id} found in the transaction reports of the connection.
+ */
+public final class TinkermicIdCache {
+    public static final long DEFAULT_MAX_SIZE = 1000000L;
+
+    private static final class Entry {
+        private final Object entityId;
+        private final long sinceT;
+        private final long untilT;
+
+        Entry(Object entityId, long sinceT, long untilT) {
+            this.entityId = entityId;
+            this.sinceT = sinceT;
+            this.untilT = untilT;
+        }
+
+        boolean holds(long basisT) {
+            return entityId != null && sinceT <= basisT && basisT < untilT;
+        }
+    }
+
+    private final Cache<UUID, Entry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize The maximum number of cached elements. A size of 0 disables the cache.
+     */
+    public TinkermicIdCache(long maxSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * The entity id of an element in a database value of the connection, if it is known to the cache.
+     */
+    public Optional<Object> get(Database db, UUID uuid) {
+        Entry entry = cache.getIfPresent(uuid);
+        if (entry != null && entry.holds(db.basisT())) {
+            hits.increment();
+            return Optional.of(entry.entityId);
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Record the entity id of an element, as found in a database value with the given basis-t.
+     */
+    public void put(UUID uuid, Object entityId, long basisT) {
+        cache.asMap().merge(uuid, new Entry(entityId, basisT, Long.MAX_VALUE), (known, found) ->
+                known.entityId != null && known.sinceT <= basisT ? known : new Entry(entityId, basisT, known.untilT));
+    }
+
+    /**
+     * Record that an element was retracted in the transaction with the given basis-t.
+     */
+    public void retract(UUID uuid, long basisT) {
+        cache.asMap().merge(uuid, new Entry(null, basisT, basisT), (known, retracted) ->
+                new Entry(known.entityId, known.sinceT, Math.min(known.untilT, basisT)));
+    }
+
+    /**
+     * Close off the entries of the elements retracted in a transaction.
+     *
+     * @param report A transaction report or the result of a transaction, holding the database after the
+     *               transaction and its datoms
+     */
+    public void onTxReport(Map report) {
+        Database db = (Database) report.get(Connection.DB_AFTER);
+        Object elementId = db.entid(TinkermicHelper.ELEMENT_ID);
+        for (Object item : (Collection) report.get(Connection.TX_DATA)) {
+            Datom datom = (Datom) item;
+            if (!datom.added() && elementId.equals(datom.a())) {
+                retract((UUID) datom.v(), db.basisT());
+            }
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,121 @@
+package com.tinkermic.gremlin.structure;
+
+import clojure.lang.Keyword;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Codec between property keys and the typed Datomic attributes they are stored under, such as {@code name} and
+ * {@code :name.string.vertex}. The mappings of the keys in use are cached and shared by all threads: attribute names
+ * are interned and decoding a cached attribute yields the same {@code Optional} instance each time, so reading and
+ * writing properties doesn't build strings once a key has been seen. The caches are shared by every graph of the
+ * process, so each one is bounded to {@link #MAX_KEYS} entries, and keys that fall out of use are encoded again.
+ */
+public final class TinkermicPropertyKeys {
+    public static final long MAX_KEYS = 10000L;
+
+    private static final Optional<String> LABEL = Optional.of("label");
+
+    // key -> value class -> attribute, per element type
+    private static final LoadingCache<String, ConcurrentMap<Class<?>, String>> VERTEX_ATTRIBUTES =
+            cache(key -> new ConcurrentHashMap<>());
+    private static final LoadingCache<String, ConcurrentMap<Class<?>, String>> EDGE_ATTRIBUTES =
+            cache(key -> new ConcurrentHashMap<>());
+
+    // key -> all the attributes the key can be stored under, per element type
+    private static final LoadingCache<String, Set<String>> VERTEX_KEYS = cache(key -> encodeAll(key, false));
+    private static final LoadingCache<String, Set<String>> EDGE_KEYS = cache(key -> encodeAll(key, true));
+
+    // attribute -> key
+    private static final LoadingCache<String, Optional<String>> PROPERTY_NAMES = cache(TinkermicPropertyKeys::decode);
+
+    private static final LoadingCache<String, Keyword> KEYWORDS = cache(attribute -> Keyword.intern(attribute.substring(1)));
+
+    private TinkermicPropertyKeys() {
+    }
+
+    /**
+     * The attribute a property is stored under.
+     *
+     * @param key          The property key
+     * @param valueClass   The class of the property value
+     * @param elementClass The class of the element, either Vertex or Edge
+     * @return The interned attribute name
+     * @throws IllegalArgumentException if values of the class can't be stored
+     */
+    public static String attribute(String key, Class<?> valueClass, Class<?> elementClass) {
+        boolean edge = isEdge(elementClass);
+        ConcurrentMap<Class<?>, String> byValueClass = (edge ? EDGE_ATTRIBUTES : VERTEX_ATTRIBUTES).getUnchecked(key);
+        String attribute = byValueClass.get(valueClass);
+        if (attribute == null) {
+            attribute = byValueClass.computeIfAbsent(valueClass,
+                    c -> encode(key, TinkermicUtil.javaTypeToDatomicType(c), edge));
+        }
+        return attribute;
+    }
+
+    /**
+     * All the attributes a property can be stored under for an element type, one per Datomic value type.
+     *
+     * @return An immutable set of interned attribute names
+     */
+    public static Set<String> attributes(String key, Class<?> elementClass) {
+        return (isEdge(elementClass) ? EDGE_KEYS : VERTEX_KEYS).getUnchecked(key);
+    }
+
+    /**
+     * The property key an attribute stores, or empty if the attribute isn't a property attribute.
+     */
+    public static Optional<String> propertyName(String attribute) {
+        return PROPERTY_NAMES.getUnchecked(attribute);
+    }
+
+    /**
+     * The keyword of an attribute, for use in index lookups.
+     */
+    public static Keyword keyword(String attribute) {
+        return KEYWORDS.getUnchecked(attribute);
+    }
+
+    private static <K, V> LoadingCache<K, V> cache(Function<K, V> loader) {
+        return CacheBuilder.newBuilder().maximumSize(MAX_KEYS).build(CacheLoader.from(loader::apply));
+    }
+
+    private static boolean isEdge(Class<?> elementClass) {
+        return elementClass.isAssignableFrom(TinkermicEdge.class);
+    }
+
+    private static String encode(String key, String datomicType, boolean edge) {
+        String attribute = (":" + StringUtils.replaceChars(key, "_", "$") + "."
+                + datomicType.substring(datomicType.indexOf('/') + 1) + "." + (edge ? "edge" : "vertex")).intern();
+        PROPERTY_NAMES.asMap().putIfAbsent(attribute, Optional.of(key));
+        return attribute;
+    }
+
+    private static Set<String> encodeAll(String key, boolean edge) {
+        Set<String> encoded = new LinkedHashSet<>();
+        for (String type : TinkermicUtil.datomicTypes()) {
+            encoded.add(encode(key, type, edge));
+        }
+        return Collections.unmodifiableSet(encoded);
+    }
+
+    private static Optional<String> decode(String attribute) {
+        if (attribute.equals("graph.edge/label")) return LABEL;
+        else if (attribute.equals("graph.vertex/label")) return LABEL;
+        else if (attribute.contains(".")) {
+            return Optional.of(StringUtils.replaceChars(attribute.substring(1, attribute.indexOf(".")), "$", "_").intern());
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,143 @@
+package com.tinkermic.gremlin.structure;
+
+import clojure.lang.Keyword;
+import com.google.common.collect.Maps;
+import datomic.Connection;
+import datomic.Database;
+import datomic.Datom;
+import datomic.Peer;
+import datomic.Util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the attributes installed in the database of a graph, such as the typed property attributes
+ * {@code :name.string.vertex}. It is loaded from the {@code :db/ident} datoms when the graph is opened and kept
+ * current from the transaction reports of the connection, so deciding whether a property attribute still needs to be
+ * installed doesn't take a query.
+ * <p>
+ * An attribute missing from the registry only costs a redundant schema transaction: installing an attribute that
+ * already exists with the same definition is a no-op in Datomic.
+ */
+public final class TinkermicSchema {
+    private static final Keyword DB_IDENT = Keyword.intern("db/ident");
+    private static final Keyword DB_UNIQUE = Keyword.intern("db/unique");
+
+    private final Set<String> attributes = ConcurrentHashMap.newKeySet();
+    private final Set<String> unique = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Register the attributes defined in a database value.
+     */
+    public void load(Database db) {
+        for (Datom datom : db.datoms(Database.AEVT, DB_IDENT)) {
+            attributes.add(datom.v().toString());
+        }
+        for (Datom datom : db.datoms(Database.AEVT, DB_UNIQUE)) {
+            unique.add(db.ident(datom.e()).toString());
+        }
+    }
+
+    /**
+     * Whether an attribute is installed.
+     *
+     * @param attribute The attribute ident, as created by {@link TinkermicUtil#createKey}
+     */
+    public boolean contains(String attribute) {
+        return attributes.contains(attribute);
+    }
+
+    /**
+     * Whether an attribute is installed as a unique identity.
+     *
+     * @param attribute The attribute ident, as created by {@link TinkermicUtil#createKey}
+     */
+    public boolean isUnique(String attribute) {
+        return unique.contains(attribute);
+    }
+
+    /**
+     * Install the attributes that aren't part of the schema yet, in a single schema transaction that is only issued
+     * when there is something to install, and wait for it.
+     *
+     * @param definitions The attribute idents, mapped to the Java class of their values
+     * @return Whether a schema transaction was issued
+     */
+    boolean install(Connection connection, Map<String, ? extends Class> definitions) {
+        List<Object> statements = definitions.entrySet().stream()
+                .filter(entry -> !contains(entry.getKey()))
+                .map(entry -> definition(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        if (statements.isEmpty()) return false;
+
+        transact(connection, statements);
+        attributes.addAll(definitions.keySet());
+        return true;
+    }
+
+    /**
+     * Install an attribute as a unique identity, or make the installed attribute one, and wait for it. Datomic
+     * refuses to make an attribute unique while entities share a value of it.
+     *
+     * @param attribute  The attribute ident
+     * @param valueClass The Java class of its values
+     * @return Whether a schema transaction was issued
+     */
+    boolean installUnique(Connection connection, String attribute, Class valueClass) {
+        if (isUnique(attribute)) return false;
+
+        Map definition = definition(attribute, valueClass);
+        definition.put(":db/unique", ":db.unique/identity");
+        transact(connection, Collections.singletonList(definition));
+        attributes.add(attribute);
+        unique.add(attribute);
+        return true;
+    }
+
+    private static Map definition(String attribute, Class valueClass) {
+        return Maps.newHashMap(Util.map(":db/id", Peer.tempid(":db.part/db"),
+                ":db/ident", attribute,
+                ":db/valueType", TinkermicUtil.javaTypeToDatomicType(valueClass),
+                ":db/cardinality", ":db.cardinality/one",
+                ":db/index", true));
+    }
+
+    private static void transact(Connection connection, List<?> statements) {
+        try {
+            connection.transact(statements).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(TinkermicGraph.DATOMIC_EXCEPTION_MESSAGE, e);
+        }
+    }
+
+    /**
+     * Register the attributes installed in a transaction.
+     *
+     * @param report A transaction report or the result of a transaction, holding the database after the
+     *               transaction and its datoms
+     */
+    public void onTxReport(Map report) {
+        Database db = (Database) report.get(Connection.DB_AFTER);
+        Object ident = db.entid(DB_IDENT);
+        Object uniqueness = db.entid(DB_UNIQUE);
+        for (Object item : (Collection) report.get(Connection.TX_DATA)) {
+            Datom datom = (Datom) item;
+            if (datom.added() && ident.equals(datom.a())) {
+                attributes.add(datom.v().toString());
+            } else if (datom.added() && uniqueness.equals(datom.a())) {
+                unique.add(db.ident(datom.e()).toString());
+            }
+        }
+    }
+
+    public int size() {
+        return attributes.size();
+    }
+}
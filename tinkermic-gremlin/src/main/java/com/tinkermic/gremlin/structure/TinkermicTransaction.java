@@ -1,20 +1,26 @@
 package com.tinkermic.gremlin.structure;
 
+import clojure.lang.Keyword;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import datomic.Connection;
 import datomic.Database;
+import datomic.Datom;
+import datomic.ListenableFuture;
 import datomic.Peer;
 import datomic.Util;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.util.AbstractThreadLocalTransaction;
-§import org.apache.tinkerpop.gremlin.structure.util.TransactionException;
+import org.apache.tinkerpop.gremlin.structure.util.TransactionException;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static datomic.Connection.DB_AFTER;
@@ -53,14 +59,153 @@ public final class TinkermicTransaction extends AbstractThreadLocalTransaction {
             this.touched = touched;
         }
 
+        // The changes of a stored element, held by a mod op in place of a single statement
+        private Changes changes;
+
+        Op(Changes changes) {
+            this(OpType.mod, null);
+            this.changes = changes;
+        }
+
+        // Whether the statement is a map owned by this op, updated in place
+        private boolean building;
+
+        // The values of unique identity attributes an added vertex holds, and whether it is an upsert adopting the
+        // stored vertex holding one of them
+        private Map<String, Object> unique = Collections.emptyMap();
+        private boolean adopt;
+
+        // The statements in the transaction data, a vertex holding unique values is passed to the transaction function
+        // checking them
+        List<Object> transactionData() {
+            if (changes != null) {
+                return changes.statements();
+            }
+            return Collections.singletonList(TinkermicHelper.vertexStatement(statement, unique, adopt));
+        }
+
+        // The entity the statements are about
+        Object entity() {
+            return changes != null ? changes.entity : ((Map) statement).get(":db/id");
+        }
+
         boolean concerns(TinkermicElement element) {
             return touched.contains(element);
         }
+
+        // The statement map, copied once into a mutable builder so setting properties doesn't copy it again
+        Map builder() {
+            if (!(statement instanceof Map)) {
+                throw new IllegalArgumentException("Statement was not a map: " + statement);
+            }
+            if (!building) {
+                statement = Maps.newHashMap((Map) statement);
+                building = true;
+            }
+            return (Map) statement;
+        }
+    }
+
+    /**
+     * The pending changes of a stored element. Values asserted, attributes retracted and amounts added to long
+     * attributes are kept apart and emitted as statements of their own, so one kind of change doesn't replace another.
+     * A later change of an attribute overrides what was pending for it.
+     */
+    private static class Changes {
+        final Object entity;
+
+        // Asserted values keyed by attribute name
+        final Map<String, Object> assertions = Maps.newLinkedHashMap();
+
+        // Attributes whose stored values are retracted
+        final Set<Keyword> retractions = Sets.newLinkedHashSet();
+
+        // Amounts added to the stored values of long attributes
+        final Map<Keyword, Long> increments = Maps.newLinkedHashMap();
+
+        // Other statements about the element, such as compare-and-swap calls
+        final List<List<?>> calls = Lists.newArrayList();
+
+        Changes(Object entity) {
+            this.entity = entity;
+        }
+
+        // Assert a value, returns whether it overrode a pending change that isn't an assertion
+        boolean assertValue(String attribute, Object value) {
+            Keyword keyword = TinkermicPropertyKeys.keyword(attribute);
+            boolean overridden = retractions.remove(keyword) | increments.remove(keyword) != null;
+            assertions.put(attribute, value);
+            return overridden;
+        }
+
+        void retract(Collection<String> attributes) {
+            for (String attribute : attributes) {
+                assertions.remove(attribute);
+                increments.remove(TinkermicPropertyKeys.keyword(attribute));
+                calls.removeIf(call -> isCas(call, attribute));
+                retractions.add(TinkermicPropertyKeys.keyword(attribute));
+            }
+        }
+
+        void increment(String attribute, long delta) {
+            Keyword keyword = TinkermicPropertyKeys.keyword(attribute);
+            Object value = assertions.get(attribute);
+            if (value != null) {
+                assertions.put(attribute, ((Number) value).longValue() + delta);
+            } else if (retractions.remove(keyword)) {
+                // counting starts over from the removed value, the assertion replaces it
+                assertions.put(attribute, delta);
+            } else {
+                increments.merge(keyword, delta, Long::sum);
+            }
+        }
+
+        // A compare-and-swap of an attribute that is pending already keeps the value it expects, and swaps in the
+        // latest one
+        void call(List<?> statement) {
+            if (":db.fn/cas".equals(statement.get(0))) {
+                for (ListIterator<List<?>> pending = calls.listIterator(); pending.hasNext(); ) {
+                    List<?> call = pending.next();
+                    if (isCas(call, statement.get(2))) {
+                        pending.set(Util.list(call.get(0), call.get(1), call.get(2), call.get(3), statement.get(4)));
+                        return;
+                    }
+                }
+            }
+            calls.add(statement);
+        }
+
+        private static boolean isCas(List<?> call, Object attribute) {
+            return ":db.fn/cas".equals(call.get(0)) && attribute.equals(call.get(2));
+        }
+
+        List<Object> statements() {
+            List<Object> statements = Lists.newArrayList();
+            if (!assertions.isEmpty()) {
+                Map<Object, Object> statement = Maps.newHashMap(assertions);
+                statement.put(":db/id", entity);
+                statements.add(statement);
+            }
+            if (!retractions.isEmpty()) {
+                statements.add(Util.list(TinkermicHelper.RETRACT_ATTRIBUTES, entity, Lists.newArrayList(retractions)));
+            }
+            if (!increments.isEmpty()) {
+                statements.add(Util.list(TinkermicHelper.INCREMENT, entity, Maps.newHashMap(increments)));
+            }
+            statements.addAll(calls);
+            return statements;
+        }
     }
 
     private static class TxContext {
         // List of pending graph operations
-        private LinkedHashMap<UUID, Op> operations = Maps.newLinkedHashMap();
+        private final LinkedHashMap<UUID, Op> operations = Maps.newLinkedHashMap();
+
+        // Reverse index of the elements whose operations touch an element, such as the edges of a vertex
+        private final Map<TinkermicElement, List<TinkermicElement>> dependents = Maps.newHashMap();
+
+        // Stored edges that were given pending changes, which have to be dropped when one of their vertices is deleted
+        private final Set<TinkermicElement> changedEdges = Sets.newLinkedHashSet();
 
         // Map of vertex attributes to create the schema definition for
         private Map<String, Class> vertexAttributes = Maps.newHashMap();
@@ -75,66 +220,228 @@ public final class TinkermicTransaction extends AbstractThreadLocalTransaction {
         // Reverse lookup of dirty IDs
         private final Map<TinkermicElement, Object> revMap = Maps.newHashMap();
 
+        // Speculative database holding the pending operations, or null when it has to be rebuilt from scratch
         private Database database;
+
+        // Operations not applied to the speculative database yet
+        private final Set<Op> unapplied = Sets.newLinkedHashSet();
+
+        // Properties set on operations that were already applied to the speculative database
+        private final Map<Op, Map<String, Object>> appended = Maps.newLinkedHashMap();
+
+        // Elements added since the speculative database was last extended
+        private final List<TinkermicElement> unresolved = Lists.newArrayList();
+
+        // Entity ids of the pending additions in the speculative database, keyed by temp id
+        private final Map<Object, Object> resolved = Maps.newHashMap();
+
+        // The deduplicated statements of the pending operations, or null when they changed since they were last built
+        private List<Object> statements;
+
+        // The frozen copies of the statements handed out by ops(), or null when they changed since they were last built
+        private List<Object> frozen;
+
+        // The pending operations changed, the statements are built again when they are next asked for
+        private void changed() {
+            statements = null;
+            frozen = null;
+        }
     }
 
     private final ThreadLocal<TxContext> context = ThreadLocal.withInitial(() -> null);
     private final Connection connection;
+    private final TinkermicIdCache idCache;
+    private final TinkermicSchema schema;
+    private final TinkermicGroupCommit groupCommit;
+
+    // Speculative databases handed out by this transaction, compared by identity and dropped once unreachable
+    private final Set<Database> speculative = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+
+    public TinkermicTransaction(Graph graph, Connection connection, TinkermicIdCache idCache, TinkermicSchema schema) {
+        this(graph, connection, idCache, schema, null);
+    }
 
-    public TinkermicTransaction(Graph graph, Connection connection) {
+    /**
+     * @param groupCommit The group commit that coalesces the commits of concurrent threads, or null to commit every
+     *                    transaction on its own
+     */
+    TinkermicTransaction(Graph graph, Connection connection, TinkermicIdCache idCache, TinkermicSchema schema,
+            TinkermicGroupCommit groupCommit) {
         super(graph);
         this.connection = connection;
+        this.idCache = idCache;
+        this.schema = schema;
+        this.groupCommit = groupCommit;
     }
 
+    /**
+     * The database holding the pending operations of the transaction. Operations that only add to what was read
+     * before are applied on top of the previous speculative database, so a transaction that interleaves writes and
+     * reads doesn't apply its whole history again on every read. Operations that undo or replace statements that were
+     * already applied, and new attributes, rebuild the speculative database from the connection.
+     */
     public Database getDatabase() {
-        if (context.get().database == null) {
-            List<Object> ops = ops(); // creates attributes
-            context.get().database = (Database) connection.db().with(ops).get(Connection.DB_AFTER);
-            return context.get().database;
+        TxContext txContext = context.get();
+        if (createAttributeDefinitions()) {
+            invalidate();
+        }
+        if (txContext.database == null) {
+            List<Object> ops = statements();
+            if (ops.isEmpty()) {
+                txContext.database = connection.db();
+            } else {
+                apply(txContext, connection.db(), ops, txContext.dirty.values());
+            }
+        } else if (!txContext.unapplied.isEmpty() || !txContext.appended.isEmpty()) {
+            apply(txContext, txContext.database, delta(txContext), txContext.unresolved);
+        }
+        txContext.unapplied.clear();
+        txContext.appended.clear();
+        txContext.unresolved.clear();
+        return txContext.database;
+    }
+
+    private void apply(TxContext txContext, Database database, List<Object> statements, Collection<TinkermicElement> added) {
+        Map result = database.with(statements);
+        txContext.database = (Database) result.get(DB_AFTER);
+        Map tempIds = (Map) result.get(TEMPIDS);
+        for (TinkermicElement element : added) {
+            txContext.resolved.put(element.graphId, Peer.resolveTempid(txContext.database, tempIds, element.graphId));
+        }
+        speculative.add(txContext.database);
+    }
+
+    // The statements not applied to the speculative database yet, referring to the elements it already holds by
+    // their entity id instead of their temp id
+    private List<Object> delta(TxContext txContext) {
+        Set<Object> statements = Sets.newLinkedHashSet();
+        txContext.appended.forEach((op, properties) -> {
+            Map statement = Maps.newHashMap(properties);
+            statement.put(":db/id", op.entity());
+            statements.add(statement);
+        });
+        for (Op op : txContext.unapplied) {
+            statements.addAll(op.transactionData());
+        }
+        return statements.stream().map(statement -> substitute(statement, txContext.resolved)).collect(Collectors.toList());
+    }
+
+    private static Object substitute(Object statement, Map<Object, Object> resolved) {
+        if (statement instanceof Map) {
+            Map<Object, Object> substituted = null;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) statement).entrySet()) {
+                Object id = resolved.get(entry.getValue());
+                if (id != null) {
+                    if (substituted == null) substituted = Maps.newHashMap((Map<?, ?>) statement);
+                    substituted.put(entry.getKey(), id);
+                }
+            }
+            return substituted == null ? statement : substituted;
+        } else if (statement instanceof List) {
+            List<Object> substituted = null;
+            List<?> list = (List<?>) statement;
+            for (int i = 0; i < list.size(); i++) {
+                Object id = resolved.get(list.get(i));
+                if (id != null) {
+                    if (substituted == null) substituted = Lists.newArrayList(list);
+                    substituted.set(i, id);
+                }
+            }
+            return substituted == null ? statement : substituted;
+        }
+        return statement;
+    }
+
+    // Drop the speculative database, the next read rebuilds it from all pending operations
+    private void invalidate() {
+        TxContext txContext = context.get();
+        txContext.database = null;
+        txContext.unapplied.clear();
+        txContext.appended.clear();
+        txContext.unresolved.clear();
+        txContext.resolved.clear();
+    }
+
+    // Track an operation that replaces a previous one for the same element
+    private void track(Op previous, Op op) {
+        TxContext txContext = context.get();
+        if (txContext.database == null) return;
+        if (previous != null && !txContext.unapplied.remove(previous)) {
+            // the replaced statement is part of the speculative database already
+            invalidate();
         } else {
-            return context.get().database;
+            txContext.unapplied.add(op);
         }
     }
 
-    private void createAttributeDefinitions() {
-        connection.transact(context.get().vertexAttributes.entrySet().stream()
-                .map(entry -> new AbstractMap.SimpleEntry<>(TinkermicUtil.createKey(entry.getKey(), entry.getValue(), Vertex.class), entry.getValue()))
-                .filter(entry -> !TinkermicUtil.attributeDefinitionExists(entry.getKey(), connection))
-                .map(entry -> {
-                    String valueType = TinkermicUtil.javaTypeToDatomicType(entry.getValue());
-                    return Util.map(":db/id", Peer.tempid(":db.part/db"),
-                            ":db/ident", entry.getKey(),
-                            ":db/valueType", valueType,
-                            ":db/cardinality", ":db.cardinality/one",
-                            ":db/index", true);
-                }).collect(Collectors.toList()));
+    /**
+     * Whether a database holds the pending statements of a transaction, rather than being a database value of the
+     * connection. Speculative databases share the basis-t of the database they were built from.
+     */
+    public boolean isSpeculative(Database database) {
+        return speculative.contains(database);
+    }
 
-        context.get().vertexAttributes.clear();
+    /**
+     * The entity id that an element added in this transaction was given in the speculative database of the
+     * transaction, or null when the database isn't the current speculative database.
+     */
+    Object resolveTempid(Database database, TinkermicElement element) {
+        TxContext txContext = context.get();
+        if (txContext == null || txContext.database != database) return null;
+        return txContext.resolved.get(element.graphId);
+    }
 
-        connection.transact(context.get().edgeAttributes.entrySet().stream()
-                .map(entry -> new AbstractMap.SimpleEntry<>(TinkermicUtil.createKey(entry.getKey(), entry.getValue(), Edge.class), entry.getValue()))
-                .filter(entry -> !TinkermicUtil.attributeDefinitionExists(entry.getKey(), connection))
-                .map(entry -> {
-                    String valueType = TinkermicUtil.javaTypeToDatomicType(entry.getValue());
-                    return Util.map(":db/id", Peer.tempid(":db.part/db"),
-                            ":db/ident", entry.getKey(),
-                            ":db/valueType", valueType,
-                            ":db/cardinality", ":db.cardinality/one",
-                            ":db/index", true);
-                }).collect(Collectors.toList()));
+    // Install the property attributes of the pending statements that aren't part of the schema yet, in a single
+    // schema transaction that is only issued when there is something to install. Returns whether it was issued.
+    private boolean createAttributeDefinitions() {
+        if (context.get().vertexAttributes.isEmpty() && context.get().edgeAttributes.isEmpty()) return false;
 
+        Map<String, Class> attributes = Maps.newLinkedHashMap();
+        context.get().vertexAttributes.forEach((key, valueClass) ->
+                attributes.put(TinkermicUtil.createKey(key, valueClass, Vertex.class), valueClass));
+        context.get().edgeAttributes.forEach((key, valueClass) ->
+                attributes.put(TinkermicUtil.createKey(key, valueClass, Edge.class), valueClass));
+        context.get().vertexAttributes.clear();
         context.get().edgeAttributes.clear();
-    }
 
-    private void setDirty() {
-        context.get().database = null;
+        // wait for the schema, the pending statements are applied to the database value that follows it
+        return schema.install(connection, attributes);
     }
 
+    /**
+     * The statements of the pending operations, frozen so later changes to the transaction don't show through.
+     */
     public List<Object> ops() {
         createAttributeDefinitions();
+        TxContext txContext = context.get();
+        if (txContext.frozen == null) {
+            txContext.frozen = Collections.unmodifiableList(
+                    statements().stream().map(TinkermicTransaction::freeze).collect(Collectors.toList()));
+        }
+        return txContext.frozen;
+    }
 
-        return Lists.newArrayList(
-                Sets.newLinkedHashSet(context.get().operations.values().stream().map(op -> op.statement).collect(Collectors.toList())));
+    // A copy of a statement that doesn't change with the statement map builders
+    private static Object freeze(Object statement) {
+        if (statement instanceof Map) {
+            return Collections.unmodifiableMap(Maps.newHashMap((Map) statement));
+        } else if (statement instanceof List && TinkermicHelper.UPSERT_VERTEX.equals(((List) statement).get(0))) {
+            List upsert = (List) statement;
+            return Util.list(upsert.get(0), freeze(upsert.get(1)), upsert.get(2), upsert.get(3));
+        }
+        return statement;
+    }
+
+    // The statements of the pending operations, built once until the next change. Statement maps are the live builders.
+    private List<Object> statements() {
+        TxContext txContext = context.get();
+        if (txContext.statements == null) {
+            txContext.statements = Collections.unmodifiableList(Lists.newArrayList(
+                    Sets.newLinkedHashSet(txContext.operations.values().stream()
+                            .flatMap(op -> op.transactionData().stream()).collect(Collectors.toList()))));
+        }
+        return txContext.statements;
     }
 
     public void addVertexAttribute(String key, Class valueClass) {
@@ -160,49 +467,219 @@ public final class TinkermicTransaction extends AbstractThreadLocalTransaction {
     }
 
     public void add(TinkermicElement element, Object statement, List<TinkermicElement> touched) {
-        context.get().operations.put(element.id(), new Op(OpType.add, statement, touched));
+        Op op = new Op(OpType.add, statement, touched);
+        context.get().changed();
+        track(context.get().operations.put(element.id(), op), op);
         context.get().dirty.put(element.graphId, element);
         context.get().revMap.put(element, element.graphId);
-        setDirty();
+        for (TinkermicElement other : touched) {
+            context.get().dependents.computeIfAbsent(other, e -> Lists.newArrayList()).add(element);
+        }
+        if (context.get().database != null) {
+            context.get().unresolved.add(element);
+        }
+    }
+
+    /**
+     * Add a vertex that adopts the stored vertex holding the same value of a unique identity attribute, by the
+     * {@code :graph.fn/upsertVertex} transaction function, instead of being refused. An adopted vertex keeps its id,
+     * the element takes it once committed.
+     */
+    void upsert(TinkermicElement element, Object statement) {
+        add(element, statement);
+        context.get().operations.get(element.id()).adopt = true;
+    }
+
+    // The element added in this transaction with an id, or null
+    TinkermicElement added(UUID id) {
+        Op op = context.get().operations.get(id);
+        return op != null && op.opType == OpType.add ? context.get().dirty.get(getStatementMap(op).get(":db/id")) : null;
     }
 
+    /**
+     * Change a stored element. The values of a statement map are asserted, other statements are kept as they are,
+     * next to the pending changes of the element.
+     */
     public void mod(TinkermicElement element, Object statement) {
-        context.get().operations.put(element.id(), new Op(OpType.mod, statement));
-        setDirty();
+        Op op = changes(element);
+        if (statement instanceof Map) {
+            ((Map<?, ?>) statement).forEach((attribute, value) -> {
+                if (!":db/id".equals(attribute)) {
+                    assertValue(op, (String) attribute, value);
+                }
+            });
+        } else {
+            op.changes.call((List<?>) statement);
+            reapply(op);
+        }
+    }
+
+    // The mod op holding the pending changes of a stored element, replacing any other op of the element
+    private Op changes(TinkermicElement element) {
+        TxContext txContext = context.get();
+        Op op = txContext.operations.get(element.id());
+        if (op == null || op.opType != OpType.mod) {
+            op = new Op(new Changes(element.graphId));
+            track(txContext.operations.put(element.id(), op), op);
+            if (element instanceof Edge) {
+                txContext.changedEdges.add(element);
+            }
+        }
+        txContext.changed();
+        return op;
+    }
+
+    private void assertValue(Op op, String attribute, Object value) {
+        TxContext txContext = context.get();
+        if (op.changes.assertValue(attribute, value)) {
+            reapply(op);
+        } else if (txContext.database != null && !txContext.unapplied.contains(op)) {
+            // a cardinality one attribute, asserting the new value on top of the applied statement replaces it
+            txContext.appended.computeIfAbsent(op, o -> Maps.newLinkedHashMap()).put(attribute, value);
+        }
+    }
+
+    // An op changed in a way that can't be applied on top of what the speculative database holds of it already
+    private void reapply(Op op) {
+        TxContext txContext = context.get();
+        if (txContext.database != null && !txContext.unapplied.contains(op)) {
+            invalidate();
+        }
     }
 
     public void del(TinkermicElement element, Object statement) {
         if (newInThisTx(element)) {
             remove(element);
         } else {
-            context.get().operations.put(element.id(), new Op(OpType.del, statement));
-            setDirty();
+            Op op = new Op(OpType.del, statement);
+            context.get().changed();
+            track(context.get().operations.put(element.id(), op), op);
         }
     }
 
+    /**
+     * Delete a stored vertex with all of its edges, which the {@code :graph.fn/retractVertex} transaction function
+     * finds and retracts on the transactor, so the edges are never read on the peer. The edges added to the vertex
+     * in this transaction are dropped instead, as are the pending changes of its stored edges, which only the edges
+     * that were changed are read for.
+     */
+    void delVertex(TinkermicVertex vertex) {
+        TxContext txContext = context.get();
+        List<TinkermicElement> dependents = txContext.dependents.remove(vertex);
+        if (dependents != null) {
+            for (TinkermicElement dependent : dependents) {
+                Op op = txContext.operations.get(dependent.id());
+                if (op != null && op.opType == OpType.add && op.concerns(vertex)) {
+                    discard(txContext, dependent);
+                    invalidate();
+                }
+            }
+        }
+        if (!txContext.changedEdges.isEmpty()) {
+            Database database = connection.db();
+            for (Iterator<TinkermicElement> edges = txContext.changedEdges.iterator(); edges.hasNext(); ) {
+                TinkermicElement edge = edges.next();
+                Op op = txContext.operations.get(edge.id());
+                if (op == null || op.opType != OpType.mod) {
+                    edges.remove();
+                } else if (incident(database, edge, vertex)) {
+                    // asserting properties of an edge the transaction function retracts would leave part of it behind
+                    discard(txContext, edge);
+                    edges.remove();
+                    invalidate();
+                }
+            }
+        }
+        del(vertex, Util.list(":graph.fn/retractVertex", vertex.graphId));
+    }
+
+    // Whether a stored edge goes out of or into a stored vertex
+    private static boolean incident(Database database, TinkermicElement edge, TinkermicVertex vertex) {
+        for (Object attribute : Arrays.asList(TinkermicHelper.OUT_VERTEX, TinkermicHelper.IN_VERTEX)) {
+            for (Datom datom : database.datoms(Database.EAVT, edge.graphId, attribute)) {
+                if (vertex.graphId.equals(datom.v())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public void remove(TinkermicElement element) {
-        context.get().operations.remove(element.id());
-        Object o = context.get().revMap.get(element);
-        if (o != null) {
-            context.get().dirty.remove(o);
+        TxContext txContext = context.get();
+        discard(txContext, element);
+
+        // drop the operations of the elements that depend on the removed one, as long as they still touch it
+        List<TinkermicElement> dependents = txContext.dependents.remove(element);
+        if (dependents != null) {
+            for (TinkermicElement dependent : dependents) {
+                Op op = txContext.operations.get(dependent.id());
+                if (op != null && op.concerns(element)) {
+                    discard(txContext, dependent);
+                }
+            }
         }
+        invalidate();
+    }
 
-        LinkedHashMap<UUID, Op> newMap = Maps.newLinkedHashMap();
-        context.get().operations.entrySet().stream().filter(entry -> !entry.getValue().concerns(element)).forEach(entry -> {
-            newMap.put(entry.getKey(), entry.getValue());
-        });
-        context.get().operations = newMap;
-        setDirty();
+    private static void discard(TxContext txContext, TinkermicElement element) {
+        txContext.operations.remove(element.id());
+        txContext.changed();
+        Object o = txContext.revMap.remove(element);
+        if (o != null) {
+            txContext.dirty.remove(o);
+        }
     }
 
     void setProperty(TinkermicElement element, String key, Object value) {
-        insertIntoStatement(context.get().operations.get(element.id()), key, value);
-        setDirty();
+        TxContext txContext = context.get();
+        Op op = txContext.operations.get(element.id());
+        if (op == null || op.opType != OpType.add) {
+            assertValue(changes(element), key, value);
+            return;
+        }
+        insertIntoStatement(op, key, value);
+        if (schema.isUnique(key)) {
+            if (op.unique.isEmpty()) op.unique = Maps.newLinkedHashMap();
+            op.unique.put(key, value);
+        }
+        txContext.changed();
+        if (txContext.database != null && !txContext.unapplied.contains(op)) {
+            // a cardinality one attribute, asserting the new value on top of the applied statement replaces it
+            txContext.appended.computeIfAbsent(op, o -> Maps.newLinkedHashMap()).put(key, value);
+        }
     }
 
     void removeProperty(TinkermicElement element, String key) {
-        removeFromStatementMap(context.get().operations.get(element.id()), key);
-        setDirty();
+        Op op = context.get().operations.get(element.id());
+        removeFromStatementMap(op, key);
+        op.unique.remove(key);
+        context.get().changed();
+        invalidate();
+    }
+
+    /**
+     * Retract the value a stored element holds for any of the attributes, through the
+     * {@code :graph.fn/retractAttributes} transaction function, so the value isn't read on the peer. Retractions of
+     * the same element in this transaction are combined into a single call, and override the pending assertions and
+     * increments of the attributes.
+     */
+    void retractProperty(TinkermicElement element, Collection<String> attributes) {
+        Op op = changes(element);
+        op.changes.retract(attributes);
+        reapply(op);
+    }
+
+    /**
+     * Add to the value a stored element holds for a long attribute, through the {@code :graph.fn/increment}
+     * transaction function, so the addition is made to the value the transactor sees. Increments of the same element
+     * in this transaction are combined into a single call. An increment of a value asserted or retracted in this
+     * transaction is added to the pending value instead.
+     */
+    void increment(TinkermicElement element, String attribute, long delta) {
+        Op op = changes(element);
+        op.changes.increment(attribute, delta);
+        reapply(op);
     }
 
     Set<String> getPropertyKeys(TinkermicElement element) {
@@ -222,7 +699,7 @@ public final class TinkermicTransaction extends AbstractThreadLocalTransaction {
 
     Map getStatements(TinkermicElement element) {
         if (newInThisTx(element)) {
-            return getStatementMap(context.get().operations.get(element.id()));
+            return Collections.unmodifiableMap(getStatementMap(context.get().operations.get(element.id())));
         }
         throw new IllegalArgumentException("Item is not added in current TX: " + element);
     }
@@ -234,9 +711,9 @@ public final class TinkermicTransaction extends AbstractThreadLocalTransaction {
 
     @Override
     protected void doCommit() throws TransactionException {
+        TxContext txContext = context.get();
         try {
-            Map transactResult = connection.transact(ops()).get();
-            resolveIds((Database) transactResult.get(DB_AFTER), (Map) transactResult.get(TEMPIDS));
+            committed(txContext, transact(ops()).get());
         } catch (InterruptedException | ExecutionException e) {
             throw new TransactionException(TinkermicGraph.DATOMIC_EXCEPTION_MESSAGE, e);
         } finally {
@@ -244,6 +721,86 @@ public final class TinkermicTransaction extends AbstractThreadLocalTransaction {
         }
     }
 
+    /**
+     * Commit the transaction without waiting for the transactor. The transaction is closed on the calling thread as
+     * soon as its statements are submitted, so the thread can go on with its next transaction. The elements added in
+     * the transaction get their entity ids once the transactor is done, and the transaction listeners of the calling
+     * thread are notified of the commit or the rollback then, before the returned future completes. A failed
+     * transaction only surfaces through the future, as a {@link TransactionException}.
+     */
+    public CompletableFuture<Void> commitAsync() {
+        readWrite();
+
+        TxContext txContext = context.get();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Map> transacted;
+        try {
+            transacted = transact(ops());
+        } catch (RuntimeException e) {
+            fireOnRollback();
+            future.completeExceptionally(new TransactionException(TinkermicGraph.DATOMIC_EXCEPTION_MESSAGE, e));
+            return future;
+        } finally {
+            context.remove();
+        }
+
+        // the listeners are thread local, they are notified from the thread that completes the transaction
+        List<Consumer<Status>> listeners = Lists.newArrayList(transactionListeners.get());
+        transacted.whenComplete((result, failure) -> {
+            Throwable error = failure;
+            if (error == null) {
+                try {
+                    committed(txContext, result);
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+            Status status = error == null ? Status.COMMIT : Status.ROLLBACK;
+            listeners.forEach(listener -> listener.accept(status));
+            if (error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(new TransactionException(TinkermicGraph.DATOMIC_EXCEPTION_MESSAGE, error));
+            }
+        });
+        return future;
+    }
+
+    // Transact statements through the group commit when it is enabled, or in a transaction of their own
+    private CompletableFuture<Map> transact(List<Object> statements) {
+        if (groupCommit != null) {
+            return groupCommit.submit(statements);
+        }
+        ListenableFuture<Map> transacted = connection.transactAsync(statements);
+        CompletableFuture<Map> future = new CompletableFuture<>();
+        transacted.addListener(() -> {
+            try {
+                future.complete(transacted.get());
+            } catch (ExecutionException e) {
+                future.completeExceptionally(e.getCause());
+            } catch (InterruptedException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, Runnable::run);
+        return future;
+    }
+
+    /**
+     * Transact the commits queued for the group commit, if enabled, and stop accepting new ones.
+     */
+    void stopGroupCommit() throws InterruptedException {
+        if (groupCommit != null) {
+            groupCommit.close();
+        }
+    }
+
+    // Resolve the ids of the elements added in a transaction once it was transacted
+    private void committed(TxContext txContext, Map transactResult) {
+        resolveIds(txContext, (Database) transactResult.get(DB_AFTER), (Map) transactResult.get(TEMPIDS));
+        // the report queue is consumed asynchronously, close off retracted ids before this thread reads again
+        idCache.onTxReport(transactResult);
+    }
+
     @Override
     protected void doRollback() throws TransactionException {
         context.remove();
@@ -255,15 +812,11 @@ public final class TinkermicTransaction extends AbstractThreadLocalTransaction {
     }
 
     private void insertIntoStatement(Op op, String key, Object value) {
-        Map newMap = Maps.newHashMap(getStatementMap(op));
-        newMap.put(key, value);
-        op.statement = newMap;
+        op.builder().put(key, value);
     }
 
     private void removeFromStatementMap(Op op, String key) {
-        Map newMap = Maps.newHashMap(getStatementMap(op));
-        newMap.remove(key);
-        op.statement = newMap;
+        op.builder().remove(key);
     }
 
     private Map getStatementMap(Op op) {
@@ -273,9 +826,16 @@ public final class TinkermicTransaction extends AbstractThreadLocalTransaction {
         throw new IllegalArgumentException("Statement was not a map: " + op.statement);
     }
 
-    private void resolveIds(Database database, Map tempIds) {
-        for (Map.Entry<Object, TinkermicElement> entry : context.get().dirty.entrySet()) {
-            entry.getValue().graphId = Peer.resolveTempid(database, tempIds, entry.getKey());
+    private void resolveIds(TxContext txContext, Database database, Map tempIds) {
+        for (Map.Entry<Object, TinkermicElement> entry : txContext.dirty.entrySet()) {
+            TinkermicElement element = entry.getValue();
+            element.graphId = Peer.resolveTempid(database, tempIds, entry.getKey());
+            Op op = txContext.operations.get(element.id());
+            if (op != null && op.adopt) {
+                // an upsert merged into a stored vertex keeps the id of that vertex
+                element.uuid = (UUID) database.entity(element.graphId).get(":graph.element/id");
+            }
+            idCache.put(element.uuid, element.graphId, database.basisT());
         }
     }
 }
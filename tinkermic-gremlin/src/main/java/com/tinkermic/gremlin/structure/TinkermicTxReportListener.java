@@ -0,0 +1,89 @@
+package com.tinkermic.gremlin.structure;
+
+import datomic.Connection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Consumes the transaction report queue of a connection on a daemon thread and hands every report to the
+ * subscribed callbacks. A connection has a single report queue, shared by all graphs opened on the same database,
+ * so there is one listener per connection. It is started by the first subscription and stopped, together with the
+ * queue, once the last callback is unsubscribed.
+ * <p>
+ * The listener owns the report queue of the connection: it consumes every report, and removes the queue when it
+ * stops. An application that reads the queue itself turns the listener off with
+ * {@link TinkermicGraph#DATOMIC_TX_REPORT_LISTENER} and hands the reports to {@link TinkermicGraph#onTxReport}.
+ */
+final class TinkermicTxReportListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TinkermicTxReportListener.class);
+    private static final long POLL_MILLIS = 100L;
+
+    private static final Map<Connection, TinkermicTxReportListener> LISTENERS = new IdentityHashMap<>();
+
+    private final Connection connection;
+    private final BlockingQueue<Map> queue;
+    private final List<Consumer<Map>> callbacks = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private TinkermicTxReportListener(Connection connection) {
+        this.connection = connection;
+        // the queue holds the reports of the transactions that follow this call, which subscribe() returns after
+        this.queue = connection.txReportQueue();
+        this.thread = new Thread(this::run, "tinkermic-tx-report-listener");
+        this.thread.setDaemon(true);
+    }
+
+    static synchronized void subscribe(Connection connection, Consumer<Map> callback) {
+        TinkermicTxReportListener listener = LISTENERS.get(connection);
+        if (listener == null) {
+            listener = new TinkermicTxReportListener(connection);
+            LISTENERS.put(connection, listener);
+            listener.thread.start();
+        }
+        listener.callbacks.add(callback);
+    }
+
+    static synchronized void unsubscribe(Connection connection, Consumer<Map> callback) {
+        TinkermicTxReportListener listener = LISTENERS.get(connection);
+        if (listener == null) return;
+        listener.callbacks.remove(callback);
+        if (listener.callbacks.isEmpty()) {
+            LISTENERS.remove(connection);
+            listener.stop();
+        }
+    }
+
+    private void stop() {
+        running = false;
+        thread.interrupt();
+        connection.removeTxReportQueue();
+    }
+
+    private void run() {
+        while (running) {
+            Map report;
+            try {
+                report = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (report == null) continue;
+            for (Consumer<Map> callback : callbacks) {
+                try {
+                    callback.accept(report);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to process a transaction report", e);
+                }
+            }
+        }
+    }
+}
@@ -6,7 +6,6 @@ import datomic.Connection;
 import datomic.Database;
 import datomic.Peer;
 import datomic.Util;
-import org.apache.commons.lang.StringUtils;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 
@@ -40,12 +39,7 @@ public class TinkermicUtil {
 
     // Retrieve the original name of a property
     public static Optional<String> getPropertyName(String property) {
-        if (property.equals("graph.edge/label")) return Optional.of("label");
-        else if (property.equals("graph.vertex/label")) return Optional.of("label");
-        else if (property.contains(".")) {
-            return Optional.of(StringUtils.replaceChars(property.substring(1, property.indexOf(".")), "$", "_"));
-        }
-        return Optional.empty();
+        return TinkermicPropertyKeys.propertyName(property);
     }
 
     // Retrieve the Datomic to for the Java equivalent
@@ -56,6 +50,16 @@ public class TinkermicUtil {
         throw new IllegalArgumentException("Object type " + clazz.getName() + " not supported");
     }
 
+    // Check whether values of a Java type can be stored as a property
+    public static boolean isSupportedType(Class clazz) {
+        return types.containsKey(clazz.getName());
+    }
+
+    // Normalize a property value to the Java type Datomic stores it as, so it can be used in an index lookup
+    public static Object toIndexValue(Object value) {
+        return value instanceof Integer ? ((Integer) value).longValue() : value;
+    }
+
     // Checks whether a new attribute defintion needs to be created on the fly
     public static boolean attributeDefinitionExists(String key, Connection connection) {
         return !Peer.q("[:find ?a :in $ ?key :where [?a :db/ident ?key]]", connection.db(), key).isEmpty();
@@ -63,8 +67,17 @@ public class TinkermicUtil {
 
     // Creates a unique key for each key-valuetype attribute (as only one attribute with the same name can be specified)
     public static String createKey(String key, Class<?> valueClazz, Class<?> elementClazz) {
-        String elementType = elementClazz.isAssignableFrom(TinkermicEdge.class) ? "edge" : "vertex";
-        return ":" + StringUtils.replaceChars(key, "_","$") + "." + javaTypeToDatomicType(valueClazz).split("/")[1] + "." + elementType;
+        return TinkermicPropertyKeys.attribute(key, valueClazz, elementClazz);
+    }
+
+    // All the keys a property can be stored under for an element type, one per Datomic value type
+    public static Set<String> createKeys(String key, Class<?> elementClazz) {
+        return TinkermicPropertyKeys.attributes(key, elementClazz);
+    }
+
+    // The Datomic value types properties can be stored as
+    static Collection<String> datomicTypes() {
+        return types.values();
     }
 
     // Helper method to create a mutable map (instead of an immutable map via the datomic Util.map method)
@@ -31,6 +31,14 @@ public final class TinkermicVertex extends TinkermicElement implements Vertex {
 
     @Override
     public Iterator<Vertex> vertices(Direction direction, String... labels) {
+        graph.tx().readWrite();
+
+        if (graph.indexAdjacency()) {
+            Database db = database();
+            return IteratorUtils.stream(graph.helper().getVerticesFromIndex(db, entityId(db), direction, labels))
+                    .map(vertex -> (Vertex) new TinkermicVertex(graph, database, (UUID) vertex.get(1), vertex.get(0), (String) vertex.get(2))).iterator();
+        }
+
         Iterator<List<Object>> vertices = graph.helper().getVertices(database(), graphId, direction, labels);
 
         return IteratorUtils.stream(vertices)
@@ -75,8 +83,6 @@ public final class TinkermicVertex extends TinkermicElement implements Vertex {
         String keyKeyword = TinkermicUtil.createKey(key, value.getClass(), Vertex.class);
         if (graph.tx().newInThisTx(this)) {
             graph.tx().setProperty(this, keyKeyword, value);
-        } else if (graph.tx().modInThisTx(this)) {
-            graph.tx().setProperty(this, keyKeyword, value);
         } else {
             // optimistic locking using Datomic's compare-and-swap function
             if (key.equals("_version")) {
@@ -108,14 +114,8 @@ public final class TinkermicVertex extends TinkermicElement implements Vertex {
             }
             return VertexProperty.empty();
         } else {
-            Entity entity = database().entity(graphId);
-            for (String property : entity.keySet()) {
-                Optional<String> propertyName = TinkermicUtil.getPropertyName(property);
-                if (propertyName.isPresent() && key.equals(propertyName.get())) {
-                    return new TinkermicVertexProperty<>(this, key, (V) entity.get(property));
-                }
-            }
-            return VertexProperty.empty();
+            Object value = propertyMap().get(key);
+            return value == null ? VertexProperty.empty() : new TinkermicVertexProperty<>(this, key, (V) value);
         }
     }
 
@@ -131,29 +131,22 @@ public final class TinkermicVertex extends TinkermicElement implements Vertex {
                     key -> ElementHelper.keyExists(key, propertyKeys));
             return IteratorUtils.map(filter, this::property);
         } else {
-            Entity entity = database().entity(graphId);
-            return entity.keySet().stream()
-                    .filter(key -> ElementHelper.keyExists(TinkermicUtil.getPropertyName(key).get(), propertyKeys) && !TinkermicUtil.isReservedKey(key) && !Graph.Hidden.isHidden(key))
-                    .map(key -> (VertexProperty<V>) new TinkermicVertexProperty<>(this, TinkermicUtil.getPropertyName(key).get(), (V) entity.get(key)))
+            return propertyMap().entrySet().stream()
+                    .filter(entry -> ElementHelper.keyExists(entry.getKey(), propertyKeys))
+                    .map(entry -> (VertexProperty<V>) new TinkermicVertexProperty<>(this, entry.getKey(), (V) entry.getValue()))
                     .iterator();
         }
     }
 
     private Iterator<Edge> getInEdges(String... labels) {
-        if (graph.tx().newInThisTx(this)) {
-            return IteratorUtils.stream(graph.helper().getEdges(database(), graph.helper().idFromUuid(database(), id()), IN, labels))
-                    .map(input -> (Edge) new TinkermicEdge(graph, database, (UUID) input.get(1), input.get(0), (String) input.get(2))).iterator();
-        }
-        return IteratorUtils.stream(graph.helper().getEdges(database(), graphId, IN, labels))
+        Database db = database();
+        return IteratorUtils.stream(graph.helper().getEdges(db, entityId(db), IN, labels))
                 .map(input -> (Edge) new TinkermicEdge(graph, database, (UUID) input.get(1), input.get(0), (String) input.get(2))).iterator();
     }
 
     private Iterator<Edge> getOutEdges(String... labels) {
-        if (graph.tx().newInThisTx(this)) {
-            return IteratorUtils.stream(graph.helper().getEdges(database(), graph.helper().idFromUuid(database(), id()), OUT, labels))
-                    .map(input -> (Edge) new TinkermicEdge(graph, database, (UUID) input.get(1), input.get(0), (String) input.get(2))).iterator();
-        }
-        return IteratorUtils.stream(graph.helper().getEdges(database(), graphId, OUT, labels))
+        Database db = database();
+        return IteratorUtils.stream(graph.helper().getEdges(db, entityId(db), OUT, labels))
                 .map(input -> (Edge) new TinkermicEdge(graph, database, (UUID) input.get(1), input.get(0), (String) input.get(2))).iterator();
     }
 
@@ -1,8 +1,10 @@
 package com.tinkermic.gremlin;
 
+import com.tinkermic.gremlin.process.traversal.step.map.DatomicVertexStep;
 import com.tinkermic.gremlin.process.traversal.step.sideEffect.DatomicGraphStep;
 import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicGraphStepStrategy;
 import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
 import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
@@ -10,13 +12,16 @@ import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.ElementValueTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.FilterRankingStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.InlineFilterStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.LazyBarrierStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversalStrategies;
 import org.apache.tinkerpop.gremlin.process.traversal.util.EmptyTraversal;
+import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -72,6 +77,24 @@ public class DatomicGraphStepStrategyTest {
         return graphStep;
     }
 
+    private static GraphTraversal.Admin<?, ?> g_V_range(final long low, final long high, final Object... hasKeyValues) {
+        final GraphTraversal.Admin<?, ?> traversal = g_V(hasKeyValues);
+        ((DatomicGraphStep<?, ?>) traversal.getStartStep()).setRange(low, high);
+        return traversal;
+    }
+
+    private static GraphTraversal.Admin<?, ?> g_V_order_range(final String key, final Order order, final long low, final long high,
+                                                              final Object... hasKeyValues) {
+        final GraphTraversal.Admin<?, ?> traversal = g_V_range(low, high, hasKeyValues);
+        ((DatomicGraphStep<?, ?>) traversal.getStartStep()).setOrder(new ElementValueTraversal<>(key), order);
+        return traversal;
+    }
+
+    private static GraphTraversal.Admin<?, Vertex> g_V_out() {
+        final GraphTraversal.Admin<?, ?> traversal = g_V();
+        return traversal.addStep(new DatomicVertexStep<>(new VertexStep<>(traversal, Vertex.class, Direction.OUT)));
+    }
+
     @Parameterized.Parameters(name = "{0}")
     public static Iterable<Object[]> generateTestParameters() {
         final int LAZY_SIZE = 2500;
@@ -104,11 +127,19 @@ public class DatomicGraphStepStrategyTest {
                         g_V("name", eq("marko"), "name", eq("bob"), "name", eq("stephen")).out("knows"), Collections.emptyList()},
                 {__.V().has("name", P.eq("marko").and(P.eq("bob").or(P.eq("stephen")))).out("knows"),
                         g_V("name", eq("marko"), "name", P.eq("bob").or(eq("stephen"))).out("knows"), Collections.emptyList()},
+                {__.V().limit(10), g_V_range(0, 10), Collections.emptyList()},
+                {__.V().has("name", "marko").range(5, 15).out(), g_V_range(5, 15, "name", eq("marko")).out(), Collections.emptyList()},
+                {__.V().has("name", "marko").as("a").limit(1).as("b"), g_V_range(0, 1, "name", eq("marko")).as("a", "b"), Collections.emptyList()},
+                {__.V().out().V().has("name", "marko").limit(1), g_V().out().asAdmin().addStep(V("name", eq("marko"))).limit(1), Collections.emptyList()},
+                {__.V().has("name", "marko").order().by("age", Order.decr).limit(10), g_V_order_range("age", Order.decr, 0, 10, "name", eq("marko")), Collections.emptyList()},
+                {__.V().order().by("age").as("a").range(5, 10).out(), g_V_order_range("age", Order.incr, 5, 10).as("a").out(), Collections.emptyList()},
+                {__.V().order().by("age").out(), g_V().order().by("age").out(), Collections.emptyList()},
+                {__.V().order().by("age").by("name").limit(1), g_V().order().by("age").by("name").limit(1), Collections.emptyList()},
                 ///////
                 {__.V().out().out().V().has("name", "marko").out(), g_V().out().barrier(LAZY_SIZE).out().barrier(LAZY_SIZE).asAdmin().addStep(V("name", eq("marko"))).barrier(LAZY_SIZE).out(), Arrays.asList(InlineFilterStrategy.instance(), FilterRankingStrategy.instance(), LazyBarrierStrategy.instance())},
                 {__.V().out().out().V().has("name", "marko").as("a").out(), g_V().out().barrier(LAZY_SIZE).out().barrier(LAZY_SIZE).asAdmin().addStep(V("name", eq("marko"))).barrier(LAZY_SIZE).as("a").out(), Arrays.asList(InlineFilterStrategy.instance(), FilterRankingStrategy.instance(), LazyBarrierStrategy.instance())},
                 {__.V().out().V().has("age", gt(32)).barrier(10).has("name", "marko").as("a"), g_V().out().barrier(LAZY_SIZE).asAdmin().addStep(V("age", gt(32), "name", eq("marko"))).barrier(LAZY_SIZE).barrier(10).as("a"), Arrays.asList(InlineFilterStrategy.instance(), FilterRankingStrategy.instance(), LazyBarrierStrategy.instance())},
-                {__.V().out().V().has("age", gt(32)).barrier(10).has("name", "marko").as("a"), g_V().out().barrier(LAZY_SIZE).asAdmin().addStep(V("age", gt(32), "name", eq("marko"))).barrier(LAZY_SIZE).barrier(10).as("a"), TraversalStrategies.GlobalCache.getStrategies(TinkermicGraph.class).toList()},
+                {__.V().out().V().has("age", gt(32)).barrier(10).has("name", "marko").as("a"), g_V_out().barrier(LAZY_SIZE).asAdmin().addStep(V("age", gt(32), "name", eq("marko"))).barrier(LAZY_SIZE).barrier(10).as("a"), TraversalStrategies.GlobalCache.getStrategies(TinkermicGraph.class).toList()},
         });
     }
 }
\ No newline at end of file
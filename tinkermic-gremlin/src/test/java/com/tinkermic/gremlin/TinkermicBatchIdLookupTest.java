@@ -0,0 +1,46 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static com.google.common.collect.ImmutableList.copyOf;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the batched id lookup of {@code g.V(ids)} and {@code g.E(ids)}.
+ */
+public class TinkermicBatchIdLookupTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testBatchIdLookup() {
+        Vertex v1 = graph.addVertex("name", "marko");
+        Vertex v2 = graph.addVertex("name", "vadas");
+        Edge e = v1.addEdge("knows", v2);
+        graph.tx().commit();
+        graph.idCache().clear();
+
+        // input order and duplicates are kept, unknown ids and ids of other element types are dropped
+        List<Vertex> vertices = copyOf(graph.vertices(v2.id(), UUID.randomUUID(), v1.id(), e.id(), v2.id()));
+        assertEquals(copyOf(new Vertex[]{v2, v1, v2}), vertices);
+        List<Edge> edges = copyOf(graph.edges(UUID.randomUUID(), e.id(), v1.id()));
+        assertEquals(copyOf(new Edge[]{e}), edges);
+    }
+}
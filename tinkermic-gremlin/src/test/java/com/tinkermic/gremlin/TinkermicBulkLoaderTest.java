@@ -0,0 +1,156 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicBulkLoader;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import com.tinkermic.gremlin.structure.TinkermicUtil;
+import datomic.Peer;
+import datomic.Util;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of loading batched transactions through {@code TinkermicBulkLoader}.
+ */
+public class TinkermicBulkLoaderTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testBulkLoader() {
+        // small batches with few in flight, so edges refer to vertices of completed and in flight batches
+        try (TinkermicBulkLoader loader = graph.bulkLoader(7, 2)) {
+            loader.declareVertexProperty("name", String.class);
+            for (int i = 0; i < 100; i++) {
+                loader.addVertex(i, "person", "name", "v" + i, "age", i);
+            }
+            for (int i = 1; i < 100; i++) {
+                loader.addEdge(i - 1, i, "next", "weight", 0.5d);
+            }
+            assertEquals(100, loader.vertexCount());
+            assertEquals(99, loader.edgeCount());
+        }
+
+        GraphTraversalSource g = graph.traversal();
+        assertEquals(100L, (long) g.V().hasLabel("person").count().next());
+        assertEquals(99L, (long) g.E().has("weight", 0.5d).count().next());
+        assertEquals("v42", g.V().has("name", "v41").out("next").values("name").next());
+        assertEquals(98L, ((Number) g.V().has("name", "v99").in("next").values("age").next()).longValue());
+    }
+
+    @Test
+    public void testBulkLoaderForwardReferences() {
+        try (TinkermicBulkLoader loader = graph.bulkLoader(3, 1).allowForwardReferences()) {
+            // the edges come first, and are held back until both of their vertices are loaded
+            for (int i = 1; i < 10; i++) {
+                loader.addEdge(i - 1, i, "next");
+            }
+            for (int i = 0; i < 10; i++) {
+                loader.addVertex(i, "person", "name", "v" + i);
+            }
+        }
+
+        GraphTraversalSource g = graph.traversal();
+        assertEquals(10L, (long) g.V().count().next());
+        assertEquals(9L, (long) g.E().count().next());
+        assertEquals("v5", g.V().has("name", "v4").out("next").values("name").next());
+        assertEquals("person", g.V().has("name", "v0").label().next());
+    }
+
+    @Test
+    public void testBulkLoaderForwardReferenceNeverLoaded() {
+        TinkermicBulkLoader loader = graph.bulkLoader().allowForwardReferences();
+        loader.addVertex(0, "person");
+        loader.addEdge(0, 1, "next");
+        loader.addEdge(2, 0, "next");
+        try {
+            loader.close();
+            fail("Closing the loader should have failed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // the edges to the missing vertices are dropped, nothing refers to a vertex without a label
+        GraphTraversalSource g = graph.traversal();
+        assertEquals(1L, (long) g.V().count().next());
+        assertEquals(0L, (long) g.E().count().next());
+        assertEquals("person", g.V().label().next());
+    }
+
+    @Test
+    public void testBulkLoaderIntegralKeys() {
+        // keys of any integral type and the same value refer to the same vertex, pending or stored
+        try (TinkermicBulkLoader loader = graph.bulkLoader(4, 2)) {
+            loader.addVertex(1, "person", "name", "v1");
+            loader.addVertex((short) 2, "person", "name", "v2");
+            loader.addEdge(1L, 2, "knows");
+            for (int i = 3; i < 10; i++) {
+                loader.addVertex((long) i, "person", "name", "v" + i);
+            }
+            loader.addEdge((byte) 2, 9, "knows");
+            try {
+                loader.addVertex(1L, "person");
+                fail("A vertex with the same key was loaded already");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        GraphTraversalSource g = graph.traversal();
+        assertEquals(9L, (long) g.V().count().next());
+        assertEquals("v2", g.V().has("name", "v1").out("knows").values("name").next());
+        assertEquals("v9", g.V().has("name", "v2").out("knows").values("name").next());
+    }
+
+    @Test
+    public void testFailedBatchFailsTheLoader() throws Exception {
+        // the attribute of a loaded property holds strings, so the batch fails on the transactor
+        String attribute = TinkermicUtil.createKey("age", Integer.class, Vertex.class);
+        Map report = Peer.connect(graph.configuration().getString(TinkermicGraph.DATOMIC_DB_URI)).transact(Util.list(
+                Util.map(":db/id", Peer.tempid(":db.part/db"),
+                        ":db/ident", attribute,
+                        ":db/valueType", ":db.type/string",
+                        ":db/cardinality", ":db.cardinality/one"))).get();
+        graph.schema().onTxReport(report);
+
+        TinkermicBulkLoader loader = graph.bulkLoader(2, 1);
+        loader.addVertex(0, "person", "age", 29);
+        loader.addVertex(1, "person", "age", 30);
+        RuntimeException failure = null;
+        try {
+            loader.flush();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        assertNotNull(failure);
+        assertFalse(failure instanceof IllegalStateException);
+
+        // edges never wait for or refer to the vertices of the failed batch
+        try {
+            loader.addEdge(0, 1, "knows");
+            fail("The loader should have failed");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+}
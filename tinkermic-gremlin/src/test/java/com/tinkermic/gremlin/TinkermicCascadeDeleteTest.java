@@ -0,0 +1,91 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils.count;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests of removing vertices with their edges on the transactor.
+ */
+public class TinkermicCascadeDeleteTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testRemoveVertexOnTransactor() {
+        Vertex hub = graph.addVertex("name", "hub");
+        for (int i = 0; i < 20; i++) {
+            Vertex v = graph.addVertex("name", "v" + i);
+            hub.addEdge("out", v);
+            v.addEdge("in", hub);
+        }
+        hub.addEdge("self", hub);
+        Vertex other = graph.addVertex("name", "other");
+        graph.tx().commit();
+
+        // an edge added in the transaction removing its vertex is dropped with it
+        Vertex stored = graph.vertices(hub.id()).next();
+        graph.vertices(other.id()).next().addEdge("pending", stored);
+        stored.remove();
+        assertEquals(1, graph.tx().ops().size());
+        assertEquals(0, count(graph.edges()));
+        graph.tx().commit();
+
+        assertEquals(21, count(graph.vertices()));
+        assertEquals(0, count(graph.edges()));
+    }
+
+    @Test
+    public void testRemoveVertexInChunks() {
+        Vertex hub = graph.addVertex("name", "hub");
+        for (int i = 0; i < 25; i++) {
+            hub.addEdge("out", graph.addVertex("name", "v" + i));
+        }
+        hub.addEdge("self", hub);
+        graph.tx().commit();
+
+        graph.removeVertex(graph.vertices(hub.id()).next(), 10);
+        assertEquals(25, count(graph.vertices()));
+        assertEquals(0, count(graph.edges()));
+        assertFalse(graph.vertices(hub.id()).hasNext());
+    }
+
+    @Test
+    public void testRemoveVertexDropsChangesOfItsEdges() {
+        Vertex a = graph.addVertex("name", "a");
+        Vertex b = graph.addVertex("name", "b");
+        Vertex c = graph.addVertex("name", "c");
+        Edge ab = a.addEdge("knows", b, "weight", 1.0d);
+        Edge bc = b.addEdge("knows", c, "weight", 1.0d);
+        graph.tx().commit();
+
+        // the pending changes of an edge of the removed vertex are dropped, those of other edges are kept
+        graph.edges(ab.id()).next().property("weight", 2.0d);
+        graph.edges(bc.id()).next().property("weight", 3.0d);
+        graph.vertices(a.id()).next().remove();
+        assertEquals(2, graph.tx().ops().size());
+        graph.tx().commit();
+
+        assertFalse(graph.edges(ab.id()).hasNext());
+        assertEquals(3.0d, (double) graph.edges(bc.id()).next().value("weight"), 0.0d);
+        assertEquals(1, count(graph.edges()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.process.traversal.step.map.DatomicCountGlobalStep;
+import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicCountStrategy;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.apache.tinkerpop.gremlin.process.traversal.P.*;
+import static org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils.count;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of a leading {@code count()} answered from the index datoms by {@code DatomicCountGlobalStep}.
+ */
+public class TinkermicCountFoldingTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testCountFolding() {
+        for (int i = 0; i < 20; i++) {
+            Vertex v = graph.addVertex(i % 2 == 0 ? "song" : "artist");
+            v.property("year", 1990 + i);
+            if (i > 0) v.addEdge(i % 2 == 0 ? "followedBy" : "sungBy", graph.vertices().next());
+        }
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal();
+        GraphTraversalSource unfolded = graph.traversal().withoutStrategies(DatomicCountStrategy.class);
+
+        GraphTraversal.Admin<Vertex, Long> traversal = g.V().hasLabel("song").count().asAdmin();
+        traversal.applyStrategies();
+        assertTrue(traversal.getStartStep() instanceof DatomicCountGlobalStep);
+
+        assertEquals(20L, (long) g.V().count().next());
+        assertEquals(10L, (long) g.V().hasLabel("song").count().next());
+        assertEquals(19L, (long) g.E().count().next());
+        assertEquals(9L, (long) g.E().hasLabel("followedBy").count().next());
+        assertEquals(1L, (long) g.V().has("year", 1995).count().next());
+        assertEquals(5L, (long) g.V().has("year", gte(2005)).count().next());
+        assertEquals(3L, (long) g.V().has("year", within(1990, 1991, 1992, 2050)).count().next());
+        assertEquals(2L, (long) g.V().has("year", gte(2005)).range(1, 3).count().next());
+        assertEquals(0L, (long) g.V().hasLabel("unknown").count().next());
+        assertEquals(unfolded.V().has("year", gte(2005)).hasLabel("song").count().next(),
+                g.V().has("year", gte(2005)).hasLabel("song").count().next());
+        assertEquals(unfolded.V().hasLabel("song").limit(3).count().next(), g.V().hasLabel("song").limit(3).count().next());
+    }
+}
@@ -0,0 +1,99 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import com.tinkermic.gremlin.structure.TinkermicVertex;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests of counter properties incremented on the transactor.
+ */
+public class TinkermicCounterTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testIncrement() throws Exception {
+        TinkermicVertex v = (TinkermicVertex) graph.addVertex("name", "marko");
+        v.increment("views", 2);
+        v.decrement("views", 1);
+        assertEquals(1L, (long) v.value("views"));
+        graph.tx().commit();
+
+        // increments of a stored element are combined into one call of the transaction function
+        TinkermicVertex stored = (TinkermicVertex) graph.vertices(v.id()).next();
+        stored.increment("views", 5);
+        stored.increment("likes", 1);
+        assertEquals(1, graph.tx().ops().size());
+        assertEquals(6L, (long) stored.value("views"));
+        graph.tx().commit();
+
+        // concurrent increments never conflict
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    ((TinkermicVertex) graph.vertices(v.id()).next()).increment("views", 1);
+                    graph.tx().commit();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Vertex committed = graph.vertices(v.id()).next();
+        assertEquals(106L, (long) committed.value("views"));
+        assertEquals(1L, (long) committed.value("likes"));
+    }
+
+    @Test
+    public void testIncrementMixedWithOtherChanges() {
+        TinkermicVertex v = (TinkermicVertex) graph.addVertex("name", "marko", "views", 1L, "likes", 4L, "score", 7L);
+        graph.tx().commit();
+
+        // assertions, retractions and increments of a stored element are pending side by side
+        TinkermicVertex stored = (TinkermicVertex) graph.vertices(v.id()).next();
+        stored.increment("views", 2);
+        stored.property("name", "marko a. rodriguez");
+        stored.property("score").remove();
+        assertEquals(3, graph.tx().ops().size());
+        assertEquals(3L, (long) stored.value("views"));
+        assertEquals("marko a. rodriguez", stored.value("name"));
+        assertFalse(stored.property("score").isPresent());
+
+        // a later change of a property overrides the pending one
+        stored.property("views", 10L);
+        stored.increment("views", 1);
+        stored.property("likes").remove();
+        stored.increment("likes", 2);
+        stored.increment("score", 1);
+        assertEquals(11L, (long) stored.value("views"));
+        graph.tx().commit();
+
+        Vertex committed = graph.vertices(v.id()).next();
+        assertEquals("marko a. rodriguez", committed.value("name"));
+        assertEquals(11L, (long) committed.value("views"));
+        assertEquals(2L, (long) committed.value("likes"));
+        assertEquals(1L, (long) committed.value("score"));
+    }
+}
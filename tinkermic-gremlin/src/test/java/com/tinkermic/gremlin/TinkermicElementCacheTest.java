@@ -0,0 +1,60 @@
+package com.tinkermic.gremlin;
+
+import com.google.common.collect.Sets;
+import com.tinkermic.gremlin.structure.TinkermicElementCache;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the per database value cache of element properties, {@code TinkermicElementCache}.
+ */
+public class TinkermicElementCacheTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testElementCache() {
+        Vertex v = graph.addVertex("name", "marko", "age", 29);
+        graph.tx().commit();
+
+        TinkermicElementCache cache = graph.elementCache();
+        Vertex read = graph.vertices(v.id()).next();
+        assertEquals("marko", read.value("name"));
+        long misses = cache.missCount();
+        long hits = cache.hitCount();
+
+        // the same database value is served from the cache
+        assertEquals(29L, ((Number) graph.vertices(v.id()).next().value("age")).longValue());
+        assertEquals(Sets.newHashSet("name", "age"), graph.vertices(v.id()).next().keys());
+        assertEquals(misses, cache.missCount());
+        assertEquals(hits + 2, cache.hitCount());
+        graph.tx().commit();
+
+        // pending changes are read from a speculative database, which is never cached
+        graph.vertices(v.id()).next().property("name", "marko2");
+        assertEquals("marko2", graph.vertices(v.id()).next().value("name"));
+        assertEquals(misses, cache.missCount());
+        assertEquals(hits + 2, cache.hitCount());
+        graph.tx().commit();
+
+        // a new database value doesn't see the cached properties of an older one
+        assertEquals("marko2", graph.vertices(v.id()).next().value("name"));
+        assertEquals(misses + 1, cache.missCount());
+    }
+}
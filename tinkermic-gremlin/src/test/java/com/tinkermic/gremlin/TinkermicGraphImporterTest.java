@@ -0,0 +1,97 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import com.tinkermic.gremlin.structure.TinkermicGraphImporter;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.io.graphson.GraphSONWriter;
+import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoWriter;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of streaming Gryo and GraphSON input through {@code TinkermicGraphImporter}.
+ */
+public class TinkermicGraphImporterTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testGraphImporter() throws Exception {
+        TinkermicGraph source = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-source-" + UUID.randomUUID());
+        try {
+            List<Vertex> vertices = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                vertices.add(source.addVertex(T.label, "person", "name", "v" + i, "age", i));
+            }
+            for (int i = 1; i < 50; i++) {
+                vertices.get(i - 1).addEdge("next", vertices.get(i), "weight", 0.5d);
+            }
+            source.tx().commit();
+
+            ByteArrayOutputStream gryo = new ByteArrayOutputStream();
+            GryoWriter.build().create().writeGraph(gryo, source);
+            ByteArrayOutputStream graphSON = new ByteArrayOutputStream();
+            GraphSONWriter.build().create().writeGraph(graphSON, source);
+
+            TinkermicGraphImporter importer = graph.importer(7, 2)
+                    .readGryo(new ByteArrayInputStream(gryo.toByteArray()))
+                    .readGraphSON(new ByteArrayInputStream(graphSON.toByteArray()));
+            assertEquals(100, importer.vertexCount());
+            assertEquals(98, importer.edgeCount());
+        } finally {
+            source.close();
+        }
+
+        GraphTraversalSource g = graph.traversal();
+        assertEquals(100L, (long) g.V().hasLabel("person").count().next());
+        assertEquals(98L, (long) g.E().has("weight", 0.5d).count().next());
+        assertEquals(2L, (long) g.V().has("name", "v41").out("next").has("name", "v42").count().next());
+        assertEquals(0L, (long) g.V().has("name", "v49").out("next").count().next());
+    }
+
+    @Test
+    public void testGraphImporterIntegralIds() throws Exception {
+        // TinkerGraph ids are longs, enough of them to grow the table of entity ids a few times
+        TinkerGraph source = TinkerGraph.open();
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            vertices.add(source.addVertex(T.label, "person", "name", "v" + i));
+        }
+        for (int i = 1; i < 5000; i++) {
+            vertices.get(i - 1).addEdge("next", vertices.get(i));
+            vertices.get(i).addEdge("first", vertices.get(0));
+        }
+        ByteArrayOutputStream gryo = new ByteArrayOutputStream();
+        GryoWriter.build().create().writeGraph(gryo, source);
+
+        TinkermicGraphImporter importer = graph.importer(500, 2).readGryo(new ByteArrayInputStream(gryo.toByteArray()));
+        assertEquals(5000, importer.vertexCount());
+        assertEquals(9998, importer.edgeCount());
+
+        GraphTraversalSource g = graph.traversal();
+        assertEquals("v4243", g.V().has("name", "v4242").out("next").values("name").next());
+        assertEquals("v0", g.V().has("name", "v4999").out("first").values("name").next());
+        assertEquals(4999L, (long) g.V().has("name", "v0").in("first").count().next());
+    }
+}
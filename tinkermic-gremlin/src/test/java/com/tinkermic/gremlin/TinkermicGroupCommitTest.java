@@ -0,0 +1,110 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.TransactionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils.count;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TinkermicGroupCommitTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        BaseConfiguration configuration = new BaseConfiguration();
+        configuration.addProperty(TinkermicGraph.DATOMIC_DB_URI, "datomic:mem://tinkermic-gremlin-group-" + UUID.randomUUID());
+        configuration.addProperty(TinkermicGraph.DATOMIC_GROUP_COMMIT_WINDOW, 200L);
+        graph = TinkermicGraph.open(configuration);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testConcurrentCommits() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 10; j++) {
+                    Vertex v = graph.addVertex("name", Thread.currentThread().getName() + "-" + j);
+                    graph.tx().commit();
+                    synchronized (vertices) {
+                        vertices.add(v);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // every contributor resolved its own temp ids from the shared transaction
+        assertEquals(80, count(graph.vertices()));
+        for (Vertex v : vertices) {
+            assertEquals(v.value("name"), graph.vertices(v.id()).next().value("name"));
+        }
+    }
+
+    @Test
+    public void testConflictFailsOnlyTheOffendingCommit() throws Exception {
+        Vertex v = graph.addVertex("name", "marko");
+        graph.tx().commit();
+
+        // both compare-and-swaps expect no version, only the first one holds
+        graph.vertices(v.id()).next().property("_version", 1);
+        CompletableFuture<Void> first = graph.tx().commitAsync();
+        graph.vertices(v.id()).next().property("_version", 2);
+        CompletableFuture<Void> second = graph.tx().commitAsync();
+        Vertex other = graph.addVertex("name", "vadas");
+        CompletableFuture<Void> third = graph.tx().commitAsync();
+
+        first.get();
+        third.get();
+        try {
+            second.get();
+            fail("The second compare-and-swap should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TransactionException);
+        }
+        assertEquals(1L, ((Number) graph.vertices(v.id()).next().value("_version")).longValue());
+        assertEquals("vadas", graph.vertices(other.id()).next().value("name"));
+    }
+
+    @Test
+    public void testIdenticalCompareAndSwapsDontCollapse() throws Exception {
+        Vertex v = graph.addVertex("name", "marko");
+        graph.tx().commit();
+
+        // both commits make the same compare-and-swap, in one group they would be a single statement that holds
+        graph.vertices(v.id()).next().property("_version", 1);
+        CompletableFuture<Void> first = graph.tx().commitAsync();
+        graph.vertices(v.id()).next().property("_version", 1);
+        CompletableFuture<Void> second = graph.tx().commitAsync();
+
+        first.get();
+        try {
+            second.get();
+            fail("The second compare-and-swap should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TransactionException);
+        }
+        assertEquals(1L, ((Number) graph.vertices(v.id()).next().value("_version")).longValue());
+    }
+}
@@ -102,6 +102,19 @@ public class TinkermicHelperTest {
         assertEquals("Marko", name);
     }
 
+    @Test
+    public void testListVerticesByLabel() throws Exception {
+        loadTestData();
+        assertEquals(2L, Lists.newArrayList(helper.listVertices(getDb(), "vertex")).size());
+        assertEquals(0L, Lists.newArrayList(helper.listVertices(getDb(), "knows")).size());
+        assertEquals(1L, Lists.newArrayList(helper.listEdges(getDb(), "knows")).size());
+        assertEquals(0L, Lists.newArrayList(helper.listEdges(getDb(), "vertex")).size());
+
+        List<Object> first = helper.listVertices(getDb(), "vertex").iterator().next();
+        assertEquals(helper.uuidFromId(getDb(), first.get(0)), first.get(1));
+        assertEquals("vertex", first.get(2));
+    }
+
     @Test
     public void testListEdges() throws Exception {
         loadTestData();
@@ -277,6 +290,36 @@ public class TinkermicHelperTest {
         assertEquals(5L, listKnows.size());
     }
 
+    @Test
+    public void testGetVerticesFromIndex() throws Exception {
+        loadTestData();
+        Object marko = helper.idFromUuid(getDb(), MARKO_ID);
+        Object stephen = helper.idFromUuid(getDb(), STEPHEN_ID);
+
+        List<List<Object>> out = Lists.newArrayList(helper.getVerticesFromIndex(getDb(), marko, Direction.OUT, "knows"));
+        assertEquals(1L, out.size());
+        assertEquals(Arrays.asList(stephen, STEPHEN_ID, "vertex"), out.get(0));
+        assertEquals(helper.getOutVertices(getDb(), marko, "knows").next().get(0), out.get(0).get(0));
+
+        List<List<Object>> in = Lists.newArrayList(helper.getVerticesFromIndex(getDb(), stephen, Direction.IN));
+        assertEquals(1L, in.size());
+        assertEquals(marko, in.get(0).get(0));
+
+        assertFalse(helper.getVerticesFromIndex(getDb(), marko, Direction.OUT, "UNKNOWN").hasNext());
+        assertFalse(helper.getVerticesFromIndex(getDb(), marko, Direction.IN).hasNext());
+    }
+
+    @Test
+    public void testGetBothVerticesFromIndexWithSelfReference() throws Exception {
+        loadTestData();
+        Object stephen = helper.idFromUuid(getDb(), STEPHEN_ID);
+        UUID edgeUuid = Peer.squuid();
+        TinkermicHelper.Addition edgeAddition = helper.edgeAddition(edgeUuid, "likes", stephen, stephen);
+        Database txDb = getDb(edgeAddition.statements);
+        assertEquals(3L, Iterators.size(helper.getVerticesFromIndex(txDb, stephen, Direction.BOTH)));
+        assertEquals(2L, Iterators.size(helper.getVerticesFromIndex(txDb, stephen, Direction.BOTH, "likes")));
+    }
+
     @Test
     public void testGetEdges() throws Exception {
         loadTestData();
@@ -0,0 +1,50 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import com.tinkermic.gremlin.structure.TinkermicIdCache;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests of the cross-transaction UUID to entity id cache, {@code TinkermicIdCache}.
+ */
+public class TinkermicIdCacheTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testIdCache() {
+        Vertex v = graph.addVertex("name", "marko");
+        graph.tx().commit();
+
+        // committed elements are known to the cache, looking them up doesn't touch the index
+        TinkermicIdCache cache = graph.idCache();
+        long misses = cache.missCount();
+        assertEquals(v, graph.vertices(v.id()).next());
+        assertEquals(v, graph.vertices(v.id()).next());
+        assertEquals(misses, cache.missCount());
+        graph.tx().commit();
+
+        // a retraction closes off the cached id
+        graph.vertices(v.id()).next().remove();
+        graph.tx().commit();
+        assertFalse(graph.vertices(v.id()).hasNext());
+        assertFalse(cache.get(graph.database(), (UUID) v.id()).isPresent());
+    }
+}
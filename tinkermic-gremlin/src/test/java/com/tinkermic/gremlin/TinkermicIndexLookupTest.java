@@ -0,0 +1,67 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicGraphStepStrategy;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils.count;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the property equality lookups served by the AVET index in {@code DatomicGraphStep}.
+ */
+public class TinkermicIndexLookupTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testPropertyIndexLookup() {
+        Vertex marko = graph.addVertex("person");
+        marko.property("name", "marko");
+        marko.property("age", 29);
+        Vertex vadas = graph.addVertex("person");
+        vadas.property("name", "vadas");
+        vadas.property("age", 27);
+        Vertex lop = graph.addVertex("software");
+        lop.property("name", "lop");
+        lop.property("weight", 0.4d);
+        marko.addEdge("created", lop).property("weight", 0.4d);
+
+        // the pending vertices are found through the index of the transaction's database
+        assertEquals(marko, graph.traversal().V().has("name", "marko").next());
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal();
+        assertEquals(marko, g.V().has("name", "marko").next());
+        assertEquals(marko, g.V().has("age", 29).next());
+        assertEquals(marko, g.V().has("age", 29L).next());
+        assertEquals(0, count(g.V().has("person", "name", "lop")));
+        assertEquals(0, count(g.V().has("name", "stephen")));
+        assertEquals(0, count(g.V().has("unknown", "marko")));
+        assertEquals(1, count(g.E().has("weight", 0.4d)));
+
+        // once the key is held with another value type, the lookup has to match across types
+        Vertex josh = graph.addVertex("person");
+        josh.property("age", 29.0d);
+        graph.tx().commit();
+
+        assertEquals(2, count(graph.traversal().V().has("age", 29)));
+        assertEquals(g.V().has("age", 29).toSet(),
+                graph.traversal().withoutStrategies(DatomicGraphStepStrategy.class).V().has("age", 29).toSet());
+    }
+}
@@ -0,0 +1,96 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicGraphStepStrategy;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.apache.tinkerpop.gremlin.process.traversal.Order.decr;
+import static org.apache.tinkerpop.gremlin.process.traversal.Order.incr;
+import static org.apache.tinkerpop.gremlin.process.traversal.P.*;
+import static org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils.count;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@code order().by(key).range()} served from the AVET index by {@code DatomicGraphStep}.
+ */
+public class TinkermicOrderFoldingTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testOrderFolding() {
+        for (int i = 0; i < 30; i++) {
+            Vertex v = graph.addVertex(i % 3 == 0 ? "artist" : "song");
+            v.property("score", (i * 7) % 30);
+            v.property("name", "name" + i);
+        }
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal();
+        GraphTraversalSource unfolded = graph.traversal().withoutStrategies(DatomicGraphStepStrategy.class);
+
+        assertEquals(unfolded.V().has("score", gte(0)).order().by("score", decr).limit(10).values("score").toList(),
+                g.V().has("score", gte(0)).order().by("score", decr).limit(10).values("score").toList());
+        assertEquals(unfolded.V().has("score", gte(0)).order().by("score", incr).limit(10).values("score").toList(),
+                g.V().has("score", gte(0)).order().by("score", incr).limit(10).values("score").toList());
+        assertEquals(unfolded.V().hasLabel("song").has("score", gte(0)).order().by("score", decr).range(3, 8).toList(),
+                g.V().hasLabel("song").has("score", gte(0)).order().by("score", decr).range(3, 8).toList());
+        // few of the highest values are artists, so the bounded heap has to grow
+        assertEquals(unfolded.V().hasLabel("artist").has("score", gte(0)).order().by("score", decr).limit(5).toList(),
+                g.V().hasLabel("artist").has("score", gte(0)).order().by("score", decr).limit(5).toList());
+        assertEquals(unfolded.V().has("score", gt(10)).order().by("score", incr).range(2, 4).toList(),
+                g.V().has("score", gt(10)).order().by("score", incr).range(2, 4).toList());
+        assertEquals(unfolded.V().has("name", within("name1", "name2", "name3")).order().by("score", decr).limit(2).toList(),
+                g.V().has("name", within("name1", "name2", "name3")).order().by("score", decr).limit(2).toList());
+        assertEquals(unfolded.V().has("name", gte("name")).order().by("name", decr).limit(3).toList(),
+                g.V().has("name", gte("name")).order().by("name", decr).limit(3).toList());
+        assertEquals(0, count(g.V().has("score", gte(0)).order().by("score", decr).limit(0)));
+        assertEquals(2L, (long) g.V().has("score", gte(0)).order().by("score", decr).range(28, 40).count().next());
+    }
+
+    @Test
+    public void testOrderFoldingNeedsTheKey() {
+        for (int i = 0; i < 10; i++) {
+            Vertex v = graph.addVertex("song");
+            v.property("name", "name" + i);
+            if (i % 2 == 0) v.property("score", i);
+        }
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal();
+        GraphTraversalSource unfolded = graph.traversal().withoutStrategies(DatomicGraphStepStrategy.class);
+
+        // the index only holds the elements having the key, so the order is only folded when they are the only ones
+        GraphTraversal.Admin<Vertex, Vertex> traversal = g.V().order().by("score", decr).limit(3).asAdmin();
+        traversal.applyStrategies();
+        assertTrue(traversal.getSteps().stream().anyMatch(step -> step instanceof OrderGlobalStep));
+        traversal = g.V().has("score", lt(7)).order().by("score", decr).limit(3).asAdmin();
+        traversal.applyStrategies();
+        assertFalse(traversal.getSteps().stream().anyMatch(step -> step instanceof OrderGlobalStep));
+
+        assertEquals(unfolded.V().has("score", lt(7)).order().by("score", decr).limit(3).values("score").toList(),
+                g.V().has("score", lt(7)).order().by("score", decr).limit(3).values("score").toList());
+        assertEquals(unfolded.V().hasLabel("song").has("score", gte(0)).order().by("score", incr).range(1, 10).toList(),
+                g.V().hasLabel("song").has("score", gte(0)).order().by("score", incr).range(1, 10).toList());
+        assertEquals(4L, (long) g.V().has("score", gte(0)).order().by("score", incr).range(1, 10).count().next());
+    }
+}
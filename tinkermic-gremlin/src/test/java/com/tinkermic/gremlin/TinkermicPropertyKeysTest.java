@@ -0,0 +1,60 @@
+package com.tinkermic.gremlin;
+
+import clojure.lang.Keyword;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import com.tinkermic.gremlin.structure.TinkermicPropertyKeys;
+import com.tinkermic.gremlin.structure.TinkermicVertex;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the codec between property keys and attributes, {@code TinkermicPropertyKeys}.
+ */
+public class TinkermicPropertyKeysTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testPropertyKeyCodec() {
+        String attribute = TinkermicPropertyKeys.attribute("first_name", String.class, Vertex.class);
+        assertEquals(":first$name.string.vertex", attribute);
+        assertSame(attribute, TinkermicPropertyKeys.attribute("first_name", String.class, TinkermicVertex.class));
+        assertEquals(":first$name.string.edge", TinkermicPropertyKeys.attribute("first_name", String.class, Edge.class));
+        assertEquals(":age.long.vertex", TinkermicPropertyKeys.attribute("age", Integer.class, Vertex.class));
+
+        // decoding maps an attribute back to its key, without building a new name
+        assertEquals("first_name", TinkermicPropertyKeys.propertyName(attribute).get());
+        assertSame(TinkermicPropertyKeys.propertyName(attribute), TinkermicPropertyKeys.propertyName(new String(attribute)));
+        assertFalse(TinkermicPropertyKeys.propertyName(":db/ident").isPresent());
+
+        assertTrue(TinkermicPropertyKeys.attributes("age", Vertex.class).contains(":age.double.vertex"));
+        assertSame(Keyword.intern("age.long.vertex"), TinkermicPropertyKeys.keyword(":age.long.vertex"));
+
+        // the caches are bounded, keys that were evicted are encoded again
+        for (int i = 0; i < TinkermicPropertyKeys.MAX_KEYS + 100; i++) {
+            TinkermicPropertyKeys.propertyName(TinkermicPropertyKeys.attribute("key" + i, String.class, Vertex.class));
+        }
+        assertEquals(":key0.string.vertex", TinkermicPropertyKeys.attribute("key0", String.class, Vertex.class));
+        assertEquals("key0", TinkermicPropertyKeys.propertyName(":key0.string.vertex").get());
+        assertEquals("first_name", TinkermicPropertyKeys.propertyName(attribute).get());
+    }
+}
@@ -0,0 +1,70 @@
+package com.tinkermic.gremlin;
+
+import com.google.common.collect.Sets;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests of removing properties without reading their values.
+ */
+public class TinkermicPropertyRemovalTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testReadFreePropertyRemoval() {
+        Vertex v = graph.addVertex("name", "marko", "age", 29, "city", "santa fe");
+        graph.tx().commit();
+
+        // the retractions of a stored element are combined into one call of the transaction function
+        Vertex stored = graph.vertices(v.id()).next();
+        stored.property("age").remove();
+        stored.property("city").remove();
+        assertEquals(1, graph.tx().ops().size());
+        assertFalse(stored.property("age").isPresent());
+        graph.tx().commit();
+
+        Vertex committed = graph.vertices(v.id()).next();
+        assertEquals(Sets.newHashSet("name"), committed.keys());
+        assertEquals("marko", committed.value("name"));
+    }
+
+    @Test
+    public void testPropertyRemovalMixedWithAssertions() {
+        Vertex v = graph.addVertex("name", "marko", "age", 29, "city", "santa fe");
+        graph.tx().commit();
+
+        // a property set after its removal is kept, one removed after being set is gone
+        Vertex stored = graph.vertices(v.id()).next();
+        stored.property("age").remove();
+        stored.property("age", 30);
+        stored.property("city", "rome");
+        stored.property("city").remove();
+        stored.property("name", "marko a. rodriguez");
+        assertEquals(30, ((Number) stored.value("age")).intValue());
+        assertFalse(stored.property("city").isPresent());
+        graph.tx().commit();
+
+        Vertex committed = graph.vertices(v.id()).next();
+        assertEquals(Sets.newHashSet("name", "age"), committed.keys());
+        assertEquals("marko a. rodriguez", committed.value("name"));
+        assertEquals(30, ((Number) committed.value("age")).intValue());
+    }
+}
@@ -0,0 +1,56 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicGraphStepStrategy;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.apache.tinkerpop.gremlin.process.traversal.P.*;
+import static org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils.count;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of a leading {@code range()} folded into {@code DatomicGraphStep}.
+ */
+public class TinkermicRangeFoldingTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testRangeFolding() {
+        for (int i = 0; i < 20; i++) {
+            Vertex v = graph.addVertex(i % 2 == 0 ? "song" : "artist");
+            v.property("year", 1990 + i);
+        }
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal();
+        GraphTraversalSource unfolded = graph.traversal().withoutStrategies(DatomicGraphStepStrategy.class);
+
+        assertEquals(5, count(g.V().hasLabel("song").limit(5)));
+        assertEquals(2, count(g.V().hasLabel("song").range(8, 12)));
+        assertEquals(0, count(g.V().hasLabel("song").range(10, 20)));
+        assertEquals(15, count(g.V().range(5, -1)));
+        assertEquals(g.V().hasLabel("song").toList().subList(3, 7), g.V().hasLabel("song").range(3, 7).toList());
+        List<Vertex> page = g.V().has("year", gte(2000)).hasLabel("song").range(1, 3).toList();
+        assertEquals(2, page.size());
+        assertTrue(unfolded.V().has("year", gte(2000)).hasLabel("song").toSet().containsAll(page));
+        assertEquals(3, count(g.V().has("year", gte(2000)).limit(3)));
+    }
+}
@@ -0,0 +1,62 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicGraphStepStrategy;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.apache.tinkerpop.gremlin.process.traversal.P.*;
+import static org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils.count;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the range and set lookups served by the property indexes in {@code DatomicGraphStep}.
+ */
+public class TinkermicRangeLookupTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testPropertyRangeLookup() {
+        for (int i = 0; i < 10; i++) {
+            Vertex v = graph.addVertex("person");
+            v.property("age", 20 + i);
+            v.property("name", "name" + i);
+        }
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal();
+        assertEquals(4, count(g.V().has("age", gt(25))));
+        assertEquals(5, count(g.V().has("age", gte(25))));
+        assertEquals(5, count(g.V().has("age", lt(25))));
+        assertEquals(6, count(g.V().has("age", lte(25))));
+        assertEquals(3, count(g.V().has("age", between(22, 25))));
+        assertEquals(2, count(g.V().has("age", inside(22, 25))));
+        assertEquals(3, count(g.V().has("age", gt(21)).has("age", gte(25)).has("age", lt(28))));
+        assertEquals(2, count(g.V().has("age", within(21, 23, 50))));
+        assertEquals(0, count(g.V().has("age", within())));
+        assertEquals(3, count(g.V().has("name", within("name1", "name2", "name3"))));
+        assertEquals(2, count(g.V().has("name", gt("name7"))));
+        assertEquals(0, count(g.V().has("unknown", gt(1))));
+
+        // unsupported predicates and bounds of another value type are filtered in memory
+        assertEquals(7, count(g.V().has("age", without(21, 23, 50)).has("age", neq(29))));
+        assertEquals(4, count(g.V().has("age", gt(25.5d))));
+        assertEquals(g.V().has("age", outside(22, 25)).toSet(),
+                graph.traversal().withoutStrategies(DatomicGraphStepStrategy.class).V().has("age", outside(22, 25)).toSet());
+    }
+}
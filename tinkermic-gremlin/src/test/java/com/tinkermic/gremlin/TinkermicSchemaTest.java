@@ -0,0 +1,50 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the registry of installed attributes, {@code TinkermicSchema}.
+ */
+public class TinkermicSchemaTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testSchemaRegistry() throws Exception {
+        assertFalse(graph.schema().contains(":name.string.vertex"));
+        graph.addVertex("name", "marko", "age", 29);
+        graph.tx().commit();
+
+        // attributes installed by a commit are registered without reading the schema back
+        assertTrue(graph.schema().contains(":name.string.vertex"));
+        assertTrue(graph.schema().contains(":age.long.vertex"));
+        assertFalse(graph.schema().contains(":name.string.edge"));
+
+        // a graph opened on the same database loads the installed attributes
+        TinkermicGraph other = TinkermicGraph.open(graph.configuration().getString(TinkermicGraph.DATOMIC_DB_URI));
+        try {
+            assertTrue(other.schema().contains(":name.string.vertex"));
+            assertEquals("marko", other.traversal().V().has("age", 29).values("name").next());
+        } finally {
+            other.close();
+        }
+    }
+}
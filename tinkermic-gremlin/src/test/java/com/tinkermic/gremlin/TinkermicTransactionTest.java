@@ -0,0 +1,168 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.TransactionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.apache.tinkerpop.gremlin.structure.Direction.OUT;
+import static org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils.count;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the bookkeeping of pending operations in {@code TinkermicTransaction}.
+ */
+public class TinkermicTransactionTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testIncrementalSpeculativeDatabase() {
+        Vertex root = graph.addVertex("name", "root");
+        graph.tx().commit();
+
+        // every read between writes extends the speculative database with the latest operations only
+        Vertex previous = graph.vertices(root.id()).next();
+        for (int i = 0; i < 50; i++) {
+            Vertex v = graph.addVertex("name", "v" + i);
+            previous.addEdge("next", v, "weight", i);
+            assertEquals(i + 2, count(graph.vertices()));
+            assertEquals(v, previous.vertices(OUT, "next").next());
+            previous = v;
+        }
+        assertTrue(graph.tx().isSpeculative(graph.database()));
+
+        // properties set on statements that were applied already replace their earlier values
+        Vertex existing = graph.vertices(root.id()).next();
+        existing.property("name", "first");
+        existing.property("name", "second");
+        assertEquals("second", graph.traversal().V().has("name", "second").values("name").next());
+        previous.property("name", "last");
+        assertEquals(1L, (long) graph.traversal().V().has("name", "last").count().next());
+
+        // removals rebuild the speculative database
+        previous.remove();
+        assertEquals(50, count(graph.vertices()));
+        assertEquals(0L, (long) graph.traversal().V().has("name", "last").count().next());
+        graph.tx().commit();
+
+        assertEquals(50, count(graph.vertices()));
+        assertEquals(49, count(graph.edges()));
+        assertEquals("second", graph.vertices(root.id()).next().value("name"));
+    }
+
+    @Test(timeout = 120000)
+    public void testPruneLargeTransaction() {
+        // removing an element only visits the operations that touch it, so this stays linear in the number of elements
+        Vertex hub = graph.addVertex();
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            Vertex v = graph.addVertex();
+            hub.addEdge("spoke", v);
+            vertices.add(v);
+        }
+        assertEquals(200001, graph.tx().ops().size());
+
+        for (Vertex v : vertices) {
+            v.remove();
+        }
+        assertEquals(1, graph.tx().ops().size());
+        hub.remove();
+        assertTrue(graph.tx().ops().isEmpty());
+        graph.tx().commit();
+        assertEquals(0, count(graph.vertices()));
+    }
+
+    @Test
+    public void testPendingStatementBuilders() {
+        Vertex v = graph.addVertex("name", "marko");
+        for (int i = 0; i < 30; i++) {
+            v.property("p" + i, i);
+        }
+
+        // the statements handed out are frozen, later changes to the pending vertex don't show through
+        List<Object> ops = graph.tx().ops();
+        assertEquals(1, ops.size());
+        v.property("name", "marko2");
+        v.property("p0").remove();
+        assertEquals("marko", ((Map) ops.get(0)).get(":name.string.vertex"));
+        assertEquals("marko2", ((Map) graph.tx().ops().get(0)).get(":name.string.vertex"));
+        assertFalse(((Map) graph.tx().ops().get(0)).containsKey(":p0.long.vertex"));
+        graph.tx().commit();
+
+        Vertex read = graph.vertices(v.id()).next();
+        assertEquals("marko2", read.value("name"));
+        assertEquals(30, read.keys().size());
+        assertEquals(29L, ((Number) read.value("p29")).longValue());
+    }
+
+    @Test
+    public void testCommitAsync() throws Exception {
+        Vertex v1 = graph.addVertex("name", "marko");
+        CompletableFuture<Void> first = graph.tx().commitAsync();
+
+        // the thread can start its next transaction while the first one is transacted
+        assertFalse(graph.tx().isOpen());
+        Vertex v2 = graph.addVertex("name", "vadas");
+        CompletableFuture<Void> second = graph.tx().commitAsync();
+        CompletableFuture.allOf(first, second).get();
+
+        assertEquals("marko", graph.vertices(v1.id()).next().value("name"));
+        assertEquals("vadas", graph.vertices(v2.id()).next().value("name"));
+        assertEquals(v1, graph.traversal().V().has("name", "marko").next());
+    }
+
+    @Test
+    public void testCommitAsyncNotifiesOnCompletion() throws Exception {
+        Vertex v = graph.addVertex("name", "marko");
+        graph.tx().commit();
+        List<Transaction.Status> statuses = Collections.synchronizedList(new ArrayList<>());
+        graph.tx().addTransactionListener(statuses::add);
+
+        // the listeners hear of the outcome before the future completes
+        graph.vertices(v.id()).next().property("_version", 1);
+        CompletableFuture<Void> first = graph.tx().commitAsync();
+        first.get();
+        assertEquals(Collections.singletonList(Transaction.Status.COMMIT), statuses);
+
+        // a compare-and-swap that another thread made stale is a rollback
+        statuses.clear();
+        graph.vertices(v.id()).next().property("_version", 2);
+        Thread other = new Thread(() -> {
+            graph.vertices(v.id()).next().property("_version", 3);
+            graph.tx().commit();
+        });
+        other.start();
+        other.join();
+        try {
+            graph.tx().commitAsync().get();
+            fail("The compare-and-swap should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TransactionException);
+        }
+        assertEquals(Collections.singletonList(Transaction.Status.ROLLBACK), statuses);
+    }
+}
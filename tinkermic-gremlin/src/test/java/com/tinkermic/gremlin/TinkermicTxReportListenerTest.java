@@ -0,0 +1,55 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import datomic.Connection;
+import datomic.Peer;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of handing the transaction reports of an application-owned report queue to a graph.
+ */
+public class TinkermicTxReportListenerTest {
+    private TinkermicGraph graph;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        BaseConfiguration configuration = new BaseConfiguration();
+        configuration.addProperty(TinkermicGraph.DATOMIC_DB_URI, "datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+        configuration.addProperty(TinkermicGraph.DATOMIC_TX_REPORT_LISTENER, false);
+        graph = TinkermicGraph.open(configuration);
+        connection = Peer.connect(configuration.getString(TinkermicGraph.DATOMIC_DB_URI));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+        connection.removeTxReportQueue();
+    }
+
+    @Test
+    public void testApplicationOwnedReportQueue() throws Exception {
+        BlockingQueue<Map> queue = connection.txReportQueue();
+        graph.addVertex("name", "marko");
+        graph.tx().commit();
+
+        // the graph leaves every report to the application, which passes them on
+        for (int i = 0; i < 2; i++) {
+            Map report = queue.poll(10, TimeUnit.SECONDS);
+            assertNotNull(report);
+            graph.onTxReport(report);
+        }
+        assertTrue(graph.vertices().hasNext());
+    }
+}
@@ -0,0 +1,139 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.structure.TinkermicBulkLoader;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import com.tinkermic.gremlin.structure.TinkermicPropertyKeys;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils.count;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of upserting vertices on unique identity property keys.
+ */
+public class TinkermicUpsertTest {
+    private TinkermicGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testUpsertVertex() {
+        graph.declareUniqueVertexProperty("externalId", String.class);
+        assertTrue(graph.schema().isUnique(TinkermicPropertyKeys.attribute("externalId", String.class, Vertex.class)));
+
+        Vertex first = graph.upsertVertex("person", "externalId", "x1", "name", "marko");
+        // upserts of the same value in one transaction share the pending vertex
+        assertEquals(first, graph.upsertVertex("person", "externalId", "x1", "age", 29));
+        graph.upsertVertex("person", "externalId", "x2", "name", "vadas");
+        graph.tx().commit();
+        assertEquals(2, count(graph.vertices()));
+
+        // a later upsert merges into the stored vertex in a single write
+        Vertex merged = graph.upsertVertex("software", "externalId", "x1", "name", "marko a. rodriguez");
+        assertEquals(first.id(), merged.id());
+        assertEquals(1, graph.tx().ops().size());
+        graph.tx().commit();
+
+        assertEquals(2, count(graph.vertices()));
+        Vertex stored = graph.vertices(first.id()).next();
+        assertEquals("person", stored.label());
+        assertEquals("marko a. rodriguez", stored.value("name"));
+        assertEquals(29, ((Number) stored.value("age")).intValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpsertVertexRequiresUniqueKey() {
+        graph.upsertVertex("person", "name", "marko");
+    }
+
+    @Test
+    public void testUpsertAdoptsStoredVertex() {
+        Vertex marko = graph.addVertex("person");
+        marko.property("externalId", "x1");
+        marko.property("name", "marko");
+        graph.tx().commit();
+
+        // the key is declared after the vertex was added with it, the upsert merges into the vertex and takes its id
+        graph.declareUniqueVertexProperty("externalId", String.class);
+        Vertex upserted = graph.upsertVertex("software", "externalId", "x1", "age", 29);
+        graph.tx().commit();
+
+        assertEquals(marko.id(), upserted.id());
+        assertEquals(1, count(graph.vertices()));
+        Vertex stored = graph.vertices(marko.id()).next();
+        assertEquals("person", stored.label());
+        assertEquals("marko", stored.value("name"));
+        assertEquals(29, ((Number) stored.value("age")).intValue());
+    }
+
+    @Test
+    public void testUniqueKeyOnOtherVertices() {
+        graph.declareUniqueVertexProperty("externalId", String.class);
+        Vertex upserted = graph.upsertVertex("person", "externalId", "x1");
+        graph.tx().commit();
+
+        // vertices can be given values no other vertex holds in any way
+        Vertex added = graph.addVertex("externalId", "x2");
+        Vertex vadas = graph.addVertex("name", "vadas");
+        vadas.property("externalId", "x3");
+        graph.tx().commit();
+        assertEquals(added, graph.traversal().V().has("externalId", "x2").next());
+        assertEquals(vadas, graph.traversal().V().has("externalId", "x3").next());
+
+        // a vertex given the value another vertex holds is refused, rather than merged into it
+        graph.addVertex("externalId", "x1");
+        try {
+            graph.tx().commit();
+            fail("Adding a vertex with the value of another vertex should have failed");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        graph.addVertex("name", "josh").property("externalId", "x1");
+        try {
+            graph.tx().commit();
+            fail("Setting the value of another vertex on a new vertex should have failed");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        graph.vertices(added.id()).next().property("externalId", "x1");
+        try {
+            graph.tx().commit();
+            fail("Setting the value of another vertex on a stored vertex should have failed");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        TinkermicBulkLoader loader = graph.bulkLoader();
+        loader.addVertex(0, "person", "externalId", "x1");
+        try {
+            loader.close();
+            fail("Loading a vertex with the value of another vertex should have failed");
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        // a value removed before the commit isn't checked
+        Vertex removed = graph.addVertex("name", "peter");
+        removed.property("externalId", "x1");
+        removed.property("externalId").remove();
+        graph.tx().commit();
+
+        assertEquals(4, count(graph.vertices()));
+        assertEquals(upserted, graph.traversal().V().has("externalId", "x1").next());
+        assertEquals("x2", graph.vertices(added.id()).next().value("externalId"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.tinkermic.gremlin;
+
+import com.tinkermic.gremlin.process.traversal.strategy.optimization.DatomicVertexStepStrategy;
+import com.tinkermic.gremlin.structure.TinkermicGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the batched expansion of the vertices of many traversers by {@code DatomicVertexStep}.
+ */
+public class TinkermicVertexStepTest {
+    private TinkermicGraph graph;
+    private int treeBranchSize = Integer.parseInt(System.getProperty("tinkermic-gremlin.smoketest.treeBranchSize", "3"));
+
+    @Before
+    public void setUp() throws Exception {
+        graph = TinkermicGraph.open("datomic:mem://tinkermic-gremlin-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Test
+    public void testBatchedVertexExpansion() {
+        Vertex start = graph.addVertex();
+        setupTree(treeBranchSize, start);
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal().withoutStrategies(DatomicVertexStepStrategy.class);
+        GraphTraversalSource batched = graph.traversal().withStrategies(DatomicVertexStepStrategy.instance());
+
+        assertEquals(g.V().out().out().path().toSet(), batched.V().out().out().path().toSet());
+        assertEquals(g.V().in().in().path().toSet(), batched.V().in().in().path().toSet());
+        assertEquals(g.V().both("test2").count().next(), batched.V().both("test2").count().next());
+        assertEquals(g.V(start).outE("test1").inV().outE().toSet(), batched.V(start).outE("test1").inV().outE().toSet());
+        assertEquals((long) Math.pow(treeBranchSize, 3), (long) batched.V(start).out().out().out().count().next());
+    }
+
+    private void setupTree(int branchSize, Vertex start) {
+        for (int i = 0; i < branchSize; i++) {
+            Vertex a = graph.addVertex();
+            start.addEdge("test1", a);
+            for (int j = 0; j < branchSize; j++) {
+                Vertex b = graph.addVertex();
+                a.addEdge("test2", b);
+                for (int k = 0; k < branchSize; k++) {
+                    Vertex c = graph.addVertex();
+                    b.addEdge("test3", c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tinkermic.gremlin.structure;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the primitive table of {@code TinkermicEntityIdMap} and its fallback for other ids.
+ */
+public class TinkermicEntityIdMapTest {
+    @Test
+    public void testIntegralKeys() {
+        // well beyond the initial capacity, so the table is resized a few times
+        TinkermicEntityIdMap map = new TinkermicEntityIdMap();
+        for (long i = -2500; i < 2500; i++) {
+            map.put(i * 1024, 17592186045418L + i + 2500);
+        }
+        assertEquals(5000, map.size());
+        for (long i = -2500; i < 2500; i++) {
+            assertEquals(17592186045418L + i + 2500, map.get(i * 1024));
+        }
+        assertNull(map.get(1L));
+        assertFalse(map.containsKey(Long.MAX_VALUE));
+
+        // ids of any integral type and the same value are the same key
+        map.put(7, 42L);
+        assertEquals(42L, map.get(7L));
+        assertEquals(42L, map.get((short) 7));
+        assertEquals(42L, map.get((byte) 7));
+        assertTrue(map.containsKey(7));
+
+        // a key put again keeps its slot and takes the new entity id
+        map.put(7L, 43L);
+        map.put(1024, 44L);
+        assertEquals(5001, map.size());
+        assertEquals(43L, map.get(7));
+        assertEquals(44L, map.get(1024L));
+    }
+
+    @Test
+    public void testOtherKeys() {
+        TinkermicEntityIdMap map = new TinkermicEntityIdMap();
+        UUID uuid = UUID.randomUUID();
+        map.put("marko", 1L);
+        map.put(uuid, 2L);
+        map.put(7.0d, 3L);
+        assertEquals(3, map.size());
+        assertEquals(1L, map.get("marko"));
+        assertEquals(2L, map.get(uuid));
+        assertEquals(3L, map.get(7.0d));
+        assertNull(map.get(7L));
+
+        map.put("marko", 4L);
+        assertEquals(3, map.size());
+        assertEquals(4L, map.get("marko"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.tinkermic.gremlin.structure;
+
+import datomic.Connection;
+import datomic.Peer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of closing a {@code TinkermicGroupCommit} while commits are being queued.
+ */
+public class TinkermicGroupCommitCloseTest {
+    private String uri;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        uri = "datomic:mem://tinkermic-gremlin-" + UUID.randomUUID();
+        Peer.createDatabase(uri);
+        connection = Peer.connect(uri);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Peer.deleteDatabase(uri);
+    }
+
+    @Test
+    public void testSubmitRacingClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            TinkermicGroupCommit groupCommit = new TinkermicGroupCommit(connection, 1L, 100);
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<Map>> results = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < 50; j++) {
+                        results.add(groupCommit.submit(Collections.emptyList()));
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            start.countDown();
+            groupCommit.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            // every commit is either transacted or failed, none is left waiting
+            for (CompletableFuture<Map> result : results) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            }
+        }
+    }
+}